@@ -0,0 +1,31 @@
+package pl.igorbykowski.exchange_rates.exchange_rate;
+
+import org.openjdk.jmh.annotations.*;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CurrencyCodeBenchmark {
+
+    @Param({"AUD", "USD", "CNY"})
+    public String currencyCode;
+
+    @Benchmark
+    public Currency parseValidCode() {
+        return ExchangeRateService.parseCurrencyCode(currencyCode);
+    }
+
+    @Benchmark
+    public Object parseInvalidCode() {
+        try {
+            return ExchangeRateService.parseCurrencyCode("XYZ");
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package pl.igorbykowski.exchange_rates.exchange_rate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.difference.BidAskDifferenceResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.min_max.MinMaxAverageValueResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.DatedValue;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateStatisticsResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the API responses with object mappers configured like the ones Spring MVC uses, in JSON and in the binary
+ * formats clients may ask for. The size of each encoding, and of gzipped JSON, is printed once before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResponseSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+    private final LocalDate date = LocalDate.of(2023, 4, 28);
+
+    private final AverageExchangeRateResponse average = AverageExchangeRateResponse.builder()
+            .currencyCode(Currency.USD)
+            .currencyName(Currency.USD.getDescription())
+            .date(date)
+            .averageExchangeRate(new BigDecimal("4.1956"))
+            .build();
+
+    private final MinMaxAverageValueResponse minMax = MinMaxAverageValueResponse.builder()
+            .currencyCode(Currency.USD)
+            .currencyName(Currency.USD.getDescription())
+            .minAvgValue(new BigDecimal("4.1956"))
+            .maxAvgValue(new BigDecimal("4.2917"))
+            .build();
+
+    private final BidAskDifferenceResponse difference = BidAskDifferenceResponse.builder()
+            .currencyCode(Currency.EUR)
+            .currencyName(Currency.EUR.getDescription())
+            .date(date)
+            .majorDifference(new BigDecimal("0.0934"))
+            .build();
+
+    private final RateStatisticsResponse statistics = RateStatisticsResponse.builder()
+            .currencyCode(Currency.USD)
+            .currencyName(Currency.USD.getDescription())
+            .numOfQuotes(255)
+            .minAvgValue(new DatedValue(date.minusDays(10), new BigDecimal("4.1956")))
+            .maxAvgValue(new DatedValue(date.minusDays(3), new BigDecimal("4.2917")))
+            .meanAvgValue(new BigDecimal("4.232150"))
+            .medianAvgValue(new BigDecimal("4.228"))
+            .standardDeviation(new BigDecimal("0.027913"))
+            .majorDifference(new DatedValue(date.minusDays(5), new BigDecimal("0.0856")))
+            .build();
+
+    // A year of quotes, as in a series response
+    private final List<AverageExchangeRateResponse> series = IntStream.range(0, 255)
+            .mapToObj(day -> AverageExchangeRateResponse.builder()
+                    .currencyCode(Currency.USD)
+                    .currencyName(Currency.USD.getDescription())
+                    .date(date.minusDays(255 - day))
+                    .averageExchangeRate(BigDecimal.valueOf(41956 + day * 7 % 960, 4))
+                    .build())
+            .toList();
+
+    @Setup
+    public void printSizes() throws IOException {
+        System.out.printf("%nBytes      JSON  gzip JSON  CBOR  Smile%n");
+        System.out.printf("statistics %5d %10d %5d %6d%n", objectMapper.writeValueAsBytes(statistics).length,
+                gzip(objectMapper.writeValueAsBytes(statistics)).length, cborMapper.writeValueAsBytes(statistics).length,
+                smileMapper.writeValueAsBytes(statistics).length);
+        System.out.printf("series     %5d %10d %5d %6d%n", objectMapper.writeValueAsBytes(series).length,
+                gzip(objectMapper.writeValueAsBytes(series)).length, cborMapper.writeValueAsBytes(series).length,
+                smileMapper.writeValueAsBytes(series).length);
+    }
+
+    @Benchmark
+    public byte[] writeAverage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(average);
+    }
+
+    @Benchmark
+    public byte[] writeMinMax() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(minMax);
+    }
+
+    @Benchmark
+    public byte[] writeDifference() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(difference);
+    }
+
+    @Benchmark
+    public byte[] writeStatistics() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(statistics);
+    }
+
+    @Benchmark
+    public byte[] writeStatisticsCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(statistics);
+    }
+
+    @Benchmark
+    public byte[] writeStatisticsSmile() throws JsonProcessingException {
+        return smileMapper.writeValueAsBytes(statistics);
+    }
+
+    @Benchmark
+    public byte[] writeSeries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(series);
+    }
+
+    @Benchmark
+    public byte[] writeSeriesGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(series));
+    }
+
+    @Benchmark
+    public byte[] writeSeriesCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(series);
+    }
+
+    @Benchmark
+    public byte[] writeSeriesSmile() throws JsonProcessingException {
+        return smileMapper.writeValueAsBytes(series);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+}
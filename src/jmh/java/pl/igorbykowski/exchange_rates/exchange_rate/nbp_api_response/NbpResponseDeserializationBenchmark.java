@@ -0,0 +1,48 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads NBP rate responses the way {@code NbpApiClient} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NbpResponseDeserializationBenchmark {
+
+    @Param({"1", "10", "100", "255"})
+    public int rates;
+
+    private ObjectReader reader;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        reader = Jackson2ObjectMapperBuilder.json().build()
+                .readerFor(ExchangeRateNBPResponse.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        StringJoiner json = new StringJoiner(",",
+                "{\"table\":\"C\",\"currency\":\"dolar amerykański\",\"code\":\"USD\",\"rates\":[", "]}");
+        for (int i = 0; i < rates; i++) {
+            json.add("{\"no\":\"%03d/C/NBP/2023\",\"effectiveDate\":\"%s\",\"bid\":4.1%03d,\"ask\":4.2%03d}"
+                    .formatted(i + 1, LocalDate.of(2023, 1, 2).plusDays(i), i, i));
+        }
+        body = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ExchangeRateNBPResponse readResponse() throws IOException {
+        return reader.readValue(body);
+    }
+}
@@ -0,0 +1,97 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import org.openjdk.jmh.annotations.*;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares {@link RateStatistics} over a {@link RateSeries} with the earlier aggregations over boxed
+ * {@link RateNBPResponse} lists, which are kept here as the baseline, and with reading the extremes of
+ * {@link LastQuotes} built once per download.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AggregationBenchmark {
+
+    @Param({"1", "10", "255"})
+    public int quotes;
+
+    private List<RateNBPResponse> rates;
+    private RateSeries series;
+    private LastQuotes lastQuotes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        rates = new ArrayList<>(quotes);
+        for (int i = 0; i < quotes; i++) {
+            BigDecimal bid = BigDecimal.valueOf(30_000 + random.nextInt(20_000), 4);
+            rates.add(new RateNBPResponse("%03d/C/NBP/2023".formatted(i + 1), LocalDate.of(2023, 1, 2).plusDays(i),
+                    BigDecimal.valueOf(30_000 + random.nextInt(20_000), 4), bid, bid.add(BigDecimal.valueOf(random.nextInt(1_000), 4))));
+        }
+        series = RateSeries.of(rates);
+        lastQuotes = LastQuotes.of(series);
+    }
+
+    @Benchmark
+    public Object[] bigDecimalMinMax() {
+        List<BigDecimal> forMin = rates.stream().map(RateNBPResponse::mid).toList();
+        List<BigDecimal> forMax = rates.stream().map(RateNBPResponse::mid).toList();
+        return new Object[]{Collections.min(forMin), Collections.max(forMax)};
+    }
+
+    @Benchmark
+    public Map.Entry<LocalDate, BigDecimal> bigDecimalMajorDifference() {
+        return rates.stream()
+                .collect(Collectors.toMap(RateNBPResponse::effectiveDate, rate -> rate.ask().subtract(rate.bid())))
+                .entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public Object[] seriesMinMax() {
+        RateStatistics statistics = RateStatistics.of(series);
+        return new Object[]{statistics.min(), statistics.max()};
+    }
+
+    @Benchmark
+    public Optional<DatedValue> seriesMajorDifference() {
+        return RateStatistics.of(series).maxSpread();
+    }
+
+    @Benchmark
+    public Object[] lastQuotesMinMax() {
+        return new Object[]{lastQuotes.min(quotes), lastQuotes.max(quotes)};
+    }
+
+    @Benchmark
+    public Optional<DatedValue> lastQuotesMajorDifference() {
+        return lastQuotes.maxSpread(quotes);
+    }
+
+    @Benchmark
+    public LastQuotes buildLastQuotes() {
+        return LastQuotes.of(series);
+    }
+
+    @Benchmark
+    public Object[] seriesAllStatistics() {
+        RateStatistics statistics = RateStatistics.of(series);
+        return new Object[]{statistics.min(), statistics.max(), statistics.mean(), statistics.median(),
+                statistics.standardDeviation(), statistics.maxSpread()};
+    }
+
+    @Benchmark
+    public RateSeries convertToSeries() {
+        return RateSeries.of(rates);
+    }
+}
@@ -2,8 +2,10 @@ package pl.igorbykowski.exchange_rates;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class ExchangeRatesApplication {
 
 	public static void main(String[] args) {
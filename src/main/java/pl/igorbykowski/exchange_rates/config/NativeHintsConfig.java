@@ -0,0 +1,45 @@
+package pl.igorbykowski.exchange_rates.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.batch.AverageExchangeRateBatchRequest;
+import pl.igorbykowski.exchange_rates.exchange_rate.batch.BatchResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.batch.MultiCurrencyQuotesRequest;
+import pl.igorbykowski.exchange_rates.exchange_rate.conversion.ConversionResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.difference.BidAskDifferenceResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.min_max.MinMaxAverageValueResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateStatisticsResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.subscription.RateUpdateResponse;
+
+/**
+ * Reflection hints for a native image. Jackson binds the NBP responses and the API's requests and responses by
+ * reflection, and several of them are read or written through the object mapper directly or wrapped in
+ * {@code CompletableFuture}, where Spring's own hints for controller signatures do not reach. Nested types, such
+ * as the rates of a response, are registered with them. Lombok builders are plain code called by the application
+ * and need no hints.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.JsonBindingHints.class)
+public class NativeHintsConfig {
+
+    static final Class<?>[] JSON_TYPES = {
+            ExchangeRateNBPResponse.class, ExchangeRateTableNBPResponse.class,
+            AverageExchangeRateResponse.class, MinMaxAverageValueResponse.class, BidAskDifferenceResponse.class,
+            RateStatisticsResponse.class, ConversionResponse.class, RateUpdateResponse.class,
+            AverageExchangeRateBatchRequest.class, MultiCurrencyQuotesRequest.class, BatchResponse.class
+    };
+
+    static class JsonBindingHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package pl.igorbykowski.exchange_rates.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClientProperties;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.Executor;
+
+@Configuration
+public class NbpApiClientConfig {
+    private static final String NBP_API_THREAD_NAME_PREFIX = "nbp-api-";
+
+    /**
+     * The JDK client keeps connections alive and reuses them across requests, and sends requests without
+     * blocking the calling thread.
+     */
+    @Bean
+    public HttpClient nbpHttpClient(NbpApiClientProperties properties, Environment environment) {
+        return HttpClient.newBuilder()
+                .version(properties.httpVersion())
+                .connectTimeout(properties.connectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(nbpApiClientExecutor(properties, environment))
+                .build();
+    }
+
+    /**
+     * Completes NBP responses on virtual threads when {@code spring.threads.virtual.enabled} is set on Java 21 or
+     * later, on a fixed pool of daemon threads otherwise. It is not a bean: any {@link Executor} bean would stop Spring
+     * Boot from creating {@code applicationTaskExecutor}, which runs the asynchronous work of Spring MVC.
+     */
+    private static Executor nbpApiClientExecutor(NbpApiClientProperties properties, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(NBP_API_THREAD_NAME_PREFIX);
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.executorThreads());
+        executor.setMaxPoolSize(properties.executorThreads());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setDaemon(true);
+        executor.setThreadNamePrefix(NBP_API_THREAD_NAME_PREFIX);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,30 @@
+package pl.igorbykowski.exchange_rates.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import pl.igorbykowski.exchange_rates.exchange_rate.rate_limit.AdmissionControl;
+import pl.igorbykowski.exchange_rates.exchange_rate.rate_limit.RateLimitInterceptor;
+
+/**
+ * Rate limits clients first, so that a client out of tokens does not take an admission permit. Subscriptions are
+ * rate limited but not admitted, since they stay open for long and are bounded on their own.
+ */
+@Configuration
+@ConditionalOnProperty(name = "nbp.rate-limit.enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RateLimitConfig implements WebMvcConfigurer {
+    private static final String API_PATHS = "/api/**";
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final AdmissionControl admissionControl;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns(API_PATHS);
+        registry.addInterceptor(admissionControl).addPathPatterns(API_PATHS)
+                .excludePathPatterns("/api/v1/exchange-rates/subscribe");
+    }
+}
@@ -1,45 +1,229 @@
 package pl.igorbykowski.exchange_rates.currency;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static pl.igorbykowski.exchange_rates.currency.RateTable.A;
+import static pl.igorbykowski.exchange_rates.currency.RateTable.B;
+import static pl.igorbykowski.exchange_rates.currency.RateTable.C;
+
+/**
+ * Currencies quoted by NBP, with the tables quoting them.
+ * <p>
+ * The list follows NBP's tables A, B and C as of 2024. NBP occasionally adds a table B currency or replaces one after
+ * a redenomination; codes missing here are answered with 400 Bad Request and left out when tables are ingested, until
+ * they are added.
+ */
 @Getter
-@AllArgsConstructor
 public enum Currency {
-    AUD("1 AUD", "Australian Dollar"),
-    THB("1 THB", "Baht"),
-    BRL("1 BRL", "Brazilian Real"),
-    BGN("1 BGN", "Bulgarian Lev"),
-    CAD("1 CAD", "Canadian Dollar"),
-    CLP("100 CLP", "Chilean Peso"),
-    CZK("1 CZK", "Czech Koruna"),
-    DKK("1 DKK", "Danish Krone"),
-    EUR("1 EUR", "Euro"),
-    HUF("100 HUF", "Forint"),
-    HKD("1 HKD", "Hong Kong Dollar"),
-    UAH("1 UAH", "Hryvnia"),
-    ISK("100 ISK", "Iceland Krona"),
-    INR("100 INR", "Indian Rupee"),
-    MYR("1 MYR", "Malaysian Ringgit"),
-    MXN("1 MXN", "Mexican Peso"),
-    ILS("1 ILS", "New Israeli Shekel"),
-    NZD("1 NZD", "New Zealand Dollar"),
-    NOK("1 NOK", "Norwegian Krone"),
-    PHP("1 PHP", "Philippine Peso"),
-    GBP("1 GBP", "Pound Sterling"),
-    ZAR("1 ZAR", "Rand"),
-    RON("1 RON", "Romanian Leu"),
-    IDR("10000 IDR", "Rupiah"),
-    SGD("1 SGD", "Singapore Dollar"),
-    SEK("1 SEK", "Swedish Krona"),
-    CHF("1 CHF", "Swiss Franc"),
-    TRY("1 TRY", "Turkish Lira"),
-    USD("1 USD", "US Dollar"),
-    KRW("100 KRW", "Won"),
-    JPY("100 JPY", "Yen"),
-    CNY("1 CNY", "Yuan Renminbi"),
-    XDR("1 XDR", "SDR Int'l Monetary Fund (I.M.F.)");
+    AUD("1 AUD", "Australian Dollar", A, C),
+    THB("1 THB", "Baht", A),
+    BRL("1 BRL", "Brazilian Real", A),
+    BGN("1 BGN", "Bulgarian Lev", A),
+    CAD("1 CAD", "Canadian Dollar", A, C),
+    CLP("100 CLP", "Chilean Peso", A),
+    CZK("1 CZK", "Czech Koruna", A, C),
+    DKK("1 DKK", "Danish Krone", A, C),
+    EUR("1 EUR", "Euro", A, C),
+    HUF("100 HUF", "Forint", A, C),
+    HKD("1 HKD", "Hong Kong Dollar", A),
+    UAH("1 UAH", "Hryvnia", A),
+    ISK("100 ISK", "Iceland Krona", A),
+    INR("100 INR", "Indian Rupee", A),
+    MYR("1 MYR", "Malaysian Ringgit", A),
+    MXN("1 MXN", "Mexican Peso", A),
+    ILS("1 ILS", "New Israeli Shekel", A),
+    NZD("1 NZD", "New Zealand Dollar", A),
+    NOK("1 NOK", "Norwegian Krone", A, C),
+    PHP("1 PHP", "Philippine Peso", A),
+    GBP("1 GBP", "Pound Sterling", A, C),
+    ZAR("1 ZAR", "Rand", A),
+    RON("1 RON", "Romanian Leu", A),
+    IDR("10000 IDR", "Rupiah", A),
+    SGD("1 SGD", "Singapore Dollar", A),
+    SEK("1 SEK", "Swedish Krona", A, C),
+    CHF("1 CHF", "Swiss Franc", A, C),
+    TRY("1 TRY", "Turkish Lira", A),
+    USD("1 USD", "US Dollar", A, C),
+    KRW("100 KRW", "Won", A),
+    JPY("100 JPY", "Yen", A, C),
+    CNY("1 CNY", "Yuan Renminbi", A),
+    XDR("1 XDR", "SDR Int'l Monetary Fund (I.M.F.)", A, C),
+
+    AFN("1 AFN", "Afghani", B),
+    DZD("1 DZD", "Algerian Dinar", B),
+    ARS("1 ARS", "Argentine Peso", B),
+    AMD("1 AMD", "Armenian Dram", B),
+    AWG("1 AWG", "Aruban Florin", B),
+    AZN("1 AZN", "Azerbaijan Manat", B),
+    BSD("1 BSD", "Bahamian Dollar", B),
+    BHD("1 BHD", "Bahraini Dinar", B),
+    PAB("1 PAB", "Balboa", B),
+    BBD("1 BBD", "Barbados Dollar", B),
+    BYN("1 BYN", "Belarusian Ruble", B),
+    BZD("1 BZD", "Belize Dollar", B),
+    BOB("1 BOB", "Boliviano", B),
+    VES("1 VES", "Bolívar Soberano", B),
+    BND("1 BND", "Brunei Dollar", B),
+    BIF("1 BIF", "Burundi Franc", B),
+    CVE("1 CVE", "Cabo Verde Escudo", B),
+    XOF("1 XOF", "CFA Franc BCEAO", B),
+    XAF("1 XAF", "CFA Franc BEAC", B),
+    XPF("1 XPF", "CFP Franc", B),
+    COP("1 COP", "Colombian Peso", B),
+    KMF("1 KMF", "Comorian Franc", B),
+    CDF("1 CDF", "Congolese Franc", B),
+    BAM("1 BAM", "Convertible Mark", B),
+    NIO("1 NIO", "Cordoba Oro", B),
+    CRC("1 CRC", "Costa Rican Colon", B),
+    CUP("1 CUP", "Cuban Peso", B),
+    GMD("1 GMD", "Dalasi", B),
+    MKD("1 MKD", "Denar", B),
+    DJF("1 DJF", "Djibouti Franc", B),
+    STN("1 STN", "Dobra", B),
+    DOP("1 DOP", "Dominican Peso", B),
+    VND("1 VND", "Dong", B),
+    XCD("1 XCD", "East Caribbean Dollar", B),
+    EGP("1 EGP", "Egyptian Pound", B),
+    SVC("1 SVC", "El Salvador Colon", B),
+    ETB("1 ETB", "Ethiopian Birr", B),
+    FJD("1 FJD", "Fiji Dollar", B),
+    GHS("1 GHS", "Ghana Cedi", B),
+    GIP("1 GIP", "Gibraltar Pound", B),
+    HTG("1 HTG", "Gourde", B),
+    PYG("1 PYG", "Guarani", B),
+    GNF("1 GNF", "Guinean Franc", B),
+    GYD("1 GYD", "Guyana Dollar", B),
+    IRR("1 IRR", "Iranian Rial", B),
+    IQD("1 IQD", "Iraqi Dinar", B),
+    JMD("1 JMD", "Jamaican Dollar", B),
+    JOD("1 JOD", "Jordanian Dinar", B),
+    KES("1 KES", "Kenyan Shilling", B),
+    PGK("1 PGK", "Kina", B),
+    KWD("1 KWD", "Kuwaiti Dinar", B),
+    AOA("1 AOA", "Kwanza", B),
+    MMK("1 MMK", "Kyat", B),
+    LAK("1 LAK", "Lao Kip", B),
+    GEL("1 GEL", "Lari", B),
+    LBP("1 LBP", "Lebanese Pound", B),
+    ALL("1 ALL", "Lek", B),
+    HNL("1 HNL", "Lempira", B),
+    SLE("1 SLE", "Leone", B),
+    LRD("1 LRD", "Liberian Dollar", B),
+    LYD("1 LYD", "Libyan Dinar", B),
+    SZL("1 SZL", "Lilangeni", B),
+    LSL("1 LSL", "Loti", B),
+    MGA("1 MGA", "Malagasy Ariary", B),
+    MWK("1 MWK", "Malawi Kwacha", B),
+    MUR("1 MUR", "Mauritius Rupee", B),
+    MDL("1 MDL", "Moldovan Leu", B),
+    MAD("1 MAD", "Moroccan Dirham", B),
+    MZN("1 MZN", "Mozambique Metical", B),
+    NGN("1 NGN", "Naira", B),
+    ERN("1 ERN", "Nakfa", B),
+    NAD("1 NAD", "Namibia Dollar", B),
+    NPR("1 NPR", "Nepalese Rupee", B),
+    ANG("1 ANG", "Netherlands Antillean Guilder", B),
+    TWD("1 TWD", "New Taiwan Dollar", B),
+    MRU("1 MRU", "Ouguiya", B),
+    TOP("1 TOP", "Pa'anga", B),
+    PKR("1 PKR", "Pakistan Rupee", B),
+    MOP("1 MOP", "Pataca", B),
+    UYU("1 UYU", "Peso Uruguayo", B),
+    BWP("1 BWP", "Pula", B),
+    QAR("1 QAR", "Qatari Rial", B),
+    GTQ("1 GTQ", "Quetzal", B),
+    OMR("1 OMR", "Rial Omani", B),
+    KHR("1 KHR", "Riel", B),
+    MVR("1 MVR", "Rufiyaa", B),
+    RUB("1 RUB", "Russian Ruble", B),
+    RWF("1 RWF", "Rwanda Franc", B),
+    SAR("1 SAR", "Saudi Riyal", B),
+    RSD("1 RSD", "Serbian Dinar", B),
+    SCR("1 SCR", "Seychelles Rupee", B),
+    PEN("1 PEN", "Sol", B),
+    SBD("1 SBD", "Solomon Islands Dollar", B),
+    KGS("1 KGS", "Som", B),
+    SOS("1 SOS", "Somali Shilling", B),
+    TJS("1 TJS", "Somoni", B),
+    SSP("1 SSP", "South Sudanese Pound", B),
+    LKR("1 LKR", "Sri Lanka Rupee", B),
+    SDG("1 SDG", "Sudanese Pound", B),
+    SRD("1 SRD", "Surinam Dollar", B),
+    SYP("1 SYP", "Syrian Pound", B),
+    BDT("1 BDT", "Taka", B),
+    WST("1 WST", "Tala", B),
+    TZS("1 TZS", "Tanzanian Shilling", B),
+    KZT("1 KZT", "Tenge", B),
+    TTD("1 TTD", "Trinidad and Tobago Dollar", B),
+    MNT("1 MNT", "Tugrik", B),
+    TND("1 TND", "Tunisian Dinar", B),
+    TMT("1 TMT", "Turkmenistan New Manat", B),
+    AED("1 AED", "UAE Dirham", B),
+    UGX("1 UGX", "Uganda Shilling", B),
+    UZS("1 UZS", "Uzbekistan Sum", B),
+    VUV("1 VUV", "Vatu", B),
+    YER("1 YER", "Yemeni Rial", B),
+    ZMW("1 ZMW", "Zambian Kwacha", B),
+    ZWL("1 ZWL", "Zimbabwe Dollar", B);
+
+    private static final Currency[] BY_CODE = new Currency[26 * 26 * 26];
+
+    static {
+        for (Currency currency : values()) BY_CODE[indexOf(currency.name())] = currency;
+    }
 
+    /**
+     * Units the rates of NBP tables refer to, followed by the ISO code, e.g. {@code "100 JPY"}.
+     */
     private final String code;
     private final String description;
+    /**
+     * Number of units the rates of NBP's archive files refer to, parsed from {@link #code}. The rates served by the
+     * NBP API are always per one unit.
+     */
+    private final int unitMultiplier;
+    /**
+     * Table publishing the average rate: A, or B for currencies NBP quotes only weekly.
+     */
+    private final RateTable midTable;
+    @Getter(AccessLevel.NONE)
+    private final Set<RateTable> tables;
+
+    Currency(String code, String description, RateTable... tables) {
+        this.code = code;
+        this.description = description;
+        this.unitMultiplier = Integer.parseInt(code.substring(0, code.indexOf(' ')));
+        this.tables = Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(tables)));
+        this.midTable = this.tables.contains(RateTable.A) ? RateTable.A : RateTable.B;
+    }
+
+    public boolean isQuotedIn(RateTable table) {
+        return tables.contains(table);
+    }
+
+    /**
+     * Returns the currency of the ISO code, ignoring case, or {@code null} if NBP does not quote it. Looks the code
+     * up in an array indexed by its letters, without allocating.
+     */
+    public static Currency fromCode(String code) {
+        int index = code == null ? -1 : indexOf(code);
+        return index < 0 ? null : BY_CODE[index];
+    }
+
+    private static int indexOf(String code) {
+        if (code.length() != 3) return -1;
+        int index = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = (code.charAt(i) | 0x20) - 'a';
+            if (letter < 0 || letter >= 26) return -1;
+            index = index * 26 + letter;
+        }
+        return index;
+    }
 }
@@ -0,0 +1,11 @@
+package pl.igorbykowski.exchange_rates.currency;
+
+/**
+ * NBP exchange rate tables: A holds average (mid) rates, B holds weekly average rates of less traded currencies,
+ * C holds buy (bid) and sell (ask) rates.
+ */
+public enum RateTable {
+    A,
+    B,
+    C
+}
@@ -8,6 +8,9 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
@@ -76,6 +79,20 @@ class RestExceptionHandler extends ResponseEntityExceptionHandler {
         if (status.isSameCodeAs(HttpStatus.NOT_FOUND)) body.put("message", "Resource Not Found");
         else body.put("message", ex.getMessage());
         body.put("instance", ((ServletWebRequest) request).getRequest().getRequestURI());
+        HttpHeaders headers = ex.getResponseHeaders() == null ? HttpHeaders.EMPTY : ex.getResponseHeaders();
+        return handleExceptionInternal(ex, body, headers, status, request);
+    }
+
+    @ExceptionHandler({ResourceAccessException.class, HttpServerErrorException.class})
+    protected ResponseEntity<Object> handleNbpUnavailable(RestClientException ex, WebRequest request) {
+        log.warn("NBP API is unavailable: {}", ex.getMessage());
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", new Date());
+        body.put("status", status.value());
+        body.put("title", status.toString());
+        body.put("message", "NBP API is unavailable, try again later");
+        body.put("instance", ((ServletWebRequest) request).getRequest().getRequestURI());
         return handleExceptionInternal(ex, body, HttpHeaders.EMPTY, status, request);
     }
 }
@@ -2,16 +2,30 @@ package pl.igorbykowski.exchange_rates.exchange_rate;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
 import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
 import pl.igorbykowski.exchange_rates.exchange_rate.difference.BidAskDifferenceResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.http_cache.ResponseCaching;
 import pl.igorbykowski.exchange_rates.exchange_rate.min_max.MinMaxAverageValueResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.DateResolution;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateStatisticsResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.subscription.RateSubscriptions;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/exchange-rates")
@@ -19,26 +33,57 @@ import java.time.LocalDate;
 public class ExchangeRateController {
 
     private final ExchangeRateService service;
+    private final ResponseCaching caching;
+    private final RateSubscriptions subscriptions;
 
     @GetMapping("average/{currencyCode}/{date}")
-    public ResponseEntity<AverageExchangeRateResponse> getAverageExchangeRate(@PathVariable("currencyCode") String currencyCode,
-                                                                              @PathVariable("date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date
+    public CompletableFuture<ResponseEntity<AverageExchangeRateResponse>> getAverageExchangeRate(@PathVariable("currencyCode") String currencyCode,
+                                                                                                 @PathVariable("date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+                                                                                                 @RequestParam(name = "resolution", defaultValue = "EXACT") DateResolution resolution,
+                                                                                                 WebRequest request
     ) {
-        return ResponseEntity.ok(
-                service.getAverageExchangeRateByDateAndCurrency(currencyCode, date));
+        Currency currency = ExchangeRateService.parseCurrencyCode(currencyCode);
+        return caching.respondUpTo(request, currency.getMidTable(), date,
+                () -> service.getAverageExchangeRateByDateAndCurrency(currencyCode, date, resolution),
+                AverageExchangeRateResponse::date);
     }
 
     @GetMapping("/min-max/{currencyCode}/{numOfQuotes}")
-    public ResponseEntity<MinMaxAverageValueResponse> getMinMaxAverageValue(@PathVariable("currencyCode") String currencyCode,
-                                                                            @PathVariable("numOfQuotes") int numOfQuotes) {
-        return ResponseEntity.ok(
-                service.getMinMaxAverageValueForXDays(currencyCode, numOfQuotes));
+    public CompletableFuture<ResponseEntity<MinMaxAverageValueResponse>> getMinMaxAverageValue(@PathVariable("currencyCode") String currencyCode,
+                                                                                               @PathVariable("numOfQuotes") int numOfQuotes,
+                                                                                               WebRequest request) {
+        Currency currency = ExchangeRateService.parseCurrencyCode(currencyCode);
+        return caching.respond(request, service.getMinMaxAverageValueForXDaysAsOf(currencyCode, numOfQuotes),
+                currency.getMidTable());
     }
 
     @GetMapping("/difference/{currencyCode}/{numOfQuotes}")
-    public ResponseEntity<BidAskDifferenceResponse> getMajorDifference(@PathVariable("currencyCode") String currencyCode,
-                                                                       @PathVariable("numOfQuotes") int numOfQuotes) {
-        return ResponseEntity.ok(
-                service.getMajorDifferenceBetweenBuyAndAskRate(currencyCode, numOfQuotes));
+    public CompletableFuture<ResponseEntity<BidAskDifferenceResponse>> getMajorDifference(@PathVariable("currencyCode") String currencyCode,
+                                                                                          @PathVariable("numOfQuotes") int numOfQuotes,
+                                                                                          WebRequest request) {
+        ExchangeRateService.parseCurrencyCode(currencyCode);
+        return caching.respond(request, service.getMajorDifferenceBetweenBuyAndAskRateAsOf(currencyCode, numOfQuotes),
+                RateTable.C);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/statistics/{currencyCode}/{numOfQuotes}")
+    public CompletableFuture<ResponseEntity<RateStatisticsResponse>> getStatistics(@PathVariable("currencyCode") String currencyCode,
+                                                                                   @PathVariable("numOfQuotes") int numOfQuotes,
+                                                                                   WebRequest request) {
+        Currency currency = ExchangeRateService.parseCurrencyCode(currencyCode);
+        RateTable[] tables = currency.isQuotedIn(RateTable.C)
+                ? new RateTable[]{currency.getMidTable(), RateTable.C}
+                : new RateTable[]{currency.getMidTable()};
+        return caching.respond(request, service.getStatisticsForXDaysAsOf(currencyCode, numOfQuotes), tables);
+    }
+
+    /**
+     * Streams the quotes of the currencies as Server-Sent Events whenever NBP publishes a table quoting them.
+     */
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam("currencies") List<String> currencyCodes) {
+        Set<Currency> currencies = EnumSet.noneOf(Currency.class);
+        for (String currencyCode : currencyCodes) currencies.add(ExchangeRateService.parseCurrencyCode(currencyCode));
+        return subscriptions.subscribe(currencies);
+    }
+}
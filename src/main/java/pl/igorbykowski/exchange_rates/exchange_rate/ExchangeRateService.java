@@ -1,46 +1,152 @@
 package pl.igorbykowski.exchange_rates.exchange_rate;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.archive.ExchangeRateArchive;
 import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.cache.NbpResponseCache;
 import pl.igorbykowski.exchange_rates.exchange_rate.difference.BidAskDifferenceResponse;
 import pl.igorbykowski.exchange_rates.exchange_rate.min_max.MinMaxAverageValueResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClient;
 import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateNBPResponse;
 import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.AsOf;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.DateResolution;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationCalendar;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+import pl.igorbykowski.exchange_rates.exchange_rate.series.AverageExchangeRateSeries;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.DatedValue;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.LastQuotes;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateStatistics;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateStatisticsResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.store.ExchangeRateStore;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.ExchangeRateTableSnapshot;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 public class ExchangeRateService {
-    private static final String NBP_API_BASE_URL = "http://api.nbp.pl/api/exchangerates/rates/";
-    private static final String EXCHANGE_RATE_TABLE_A_API_URL = NBP_API_BASE_URL + "A/%s/%s";
-    private static final String EXCHANGE_RATE_TABLE_C_API_URL = NBP_API_BASE_URL + "C/%s/%s";
-    private final RestTemplate restTemplate;
+    private final NbpApiClient client;
+    private final ExchangeRateStore store;
+    private final NbpResponseCache cache;
+    private final ExchangeRateTableSnapshot snapshot;
+    private final ExchangeRateArchive archive;
+    private final PublicationSchedule schedule;
 
-    public AverageExchangeRateResponse getAverageExchangeRateByDateAndCurrency(String currencyCode, LocalDate date) {
+    public CompletableFuture<AverageExchangeRateResponse> getAverageExchangeRateByDateAndCurrency(String currencyCode, LocalDate date) {
+        return getAverageExchangeRateByDateAndCurrency(currencyCode, date, DateResolution.EXACT);
+    }
+
+    /**
+     * Returns the average rate from the table the date resolves to. Dates on which NBP publishes no table are
+     * answered as not found without calling NBP.
+     */
+    public CompletableFuture<AverageExchangeRateResponse> getAverageExchangeRateByDateAndCurrency(String currencyCode,
+                                                                                                 LocalDate requestedDate,
+                                                                                                 DateResolution resolution) {
         Currency currency = parseCurrencyCode(currencyCode);
-        String exchangeRateApiUrl = String.format(EXCHANGE_RATE_TABLE_A_API_URL, currency, formatDateToString(date));
-        ExchangeRateNBPResponse response = getExchangeRateApiResponse(exchangeRateApiUrl);
+        RateTable table = currency.getMidTable();
+        LocalDate date = schedule.resolve(table, requestedDate, resolution);
+        if (!schedule.isPublished(table, date)) return CompletableFuture.failedFuture(notPublished(requestedDate));
+        return findLocalRate(table, currency, date)
+                .map(rate -> CompletableFuture.completedFuture(rate.mid()))
+                .orElseGet(() -> {
+                    String exchangeRateApiUrl = client.exchangeRateUrl(table, currency, date);
+                    return cache.getImmutable(table, exchangeRateApiUrl,
+                                    () -> getAndStoreExchangeRateApiResponse(table, currency, exchangeRateApiUrl))
+                            .thenApply(this::getAverageExchangeRate);
+                })
+                .thenApply(averageExchangeRate -> buildAverageExchangeRateResponse(currency, date, averageExchangeRate));
+    }
 
+    /**
+     * Looks up average rates for many dates of one currency. Dates missing locally are fetched with as few NBP
+     * range queries as possible; dates without a published table are left out of the result.
+     */
+    public CompletableFuture<List<AverageExchangeRateResponse>> getAverageExchangeRatesByDatesAndCurrency(String currencyCode,
+                                                                                                       Collection<LocalDate> dates) {
+        Currency currency = parseCurrencyCode(currencyCode);
+        RateTable table = currency.getMidTable();
+        Map<LocalDate, BigDecimal> averageExchangeRates = new TreeMap<>();
+        SortedSet<LocalDate> missingDates = new TreeSet<>();
+        for (LocalDate date : dates) {
+            if (!schedule.isPublished(table, date)) continue;
+            findLocalRate(table, currency, date).ifPresentOrElse(
+                    rate -> averageExchangeRates.put(date, rate.mid()),
+                    () -> missingDates.add(date));
+        }
+        List<CompletableFuture<ExchangeRateNBPResponse>> responses = DateRange.covering(missingDates, DateRange.NBP_MAX_DAYS)
+                .stream()
+                .map(range -> getExchangeRatesInRange(table, currency, range))
+                .toList();
+        return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    responses.stream()
+                            .flatMap(response -> response.join().rates().stream())
+                            .filter(rate -> missingDates.contains(rate.effectiveDate()))
+                            .forEach(rate -> averageExchangeRates.put(rate.effectiveDate(), rate.mid()));
+                    return averageExchangeRates.entrySet().stream()
+                            .map(entry -> buildAverageExchangeRateResponse(currency, entry.getKey(), entry.getValue()))
+                            .toList();
+                });
+    }
+
+    /**
+     * Returns the average rates of one currency published within the range. The range is trimmed to the NBP
+     * archive and split into 93-day windows, which are only fetched while the series is consumed. Windows held by
+     * the in-memory tables or the imported {@link ExchangeRateArchive} are read without calling NBP.
+     */
+    public AverageExchangeRateSeries getAverageExchangeRateSeries(String currencyCode, DateRange range) {
+        Currency currency = parseCurrencyCode(currencyCode);
+        RateTable table = currency.getMidTable();
+        DateRange published = new DateRange(PublicationCalendar.FIRST_TABLE_DATE, schedule.nextPublication(table).toLocalDate());
+        List<DateRange> windows = range.intersect(published)
+                .map(trimmed -> trimmed.split(DateRange.NBP_MAX_DAYS))
+                .orElse(List.of());
+        return new AverageExchangeRateSeries(windows, window -> getRatesInRange(table, currency, window)
+                .thenApply(rates -> IntStream.range(0, rates.size())
+                        .mapToObj(i -> buildAverageExchangeRateResponse(currency, rates.date(i), RateSeries.toDecimal(rates.mid(i))))
+                        .toList()));
+    }
+
+    private AverageExchangeRateResponse buildAverageExchangeRateResponse(Currency currency, LocalDate date,
+                                                                         BigDecimal averageExchangeRate) {
         return AverageExchangeRateResponse.builder()
                 .currencyCode(currency)
                 .currencyName(currency.getDescription())
                 .date(date)
-                .averageExchangeRate(getAverageExchangeRate(response))
+                .averageExchangeRate(averageExchangeRate)
                 .build();
     }
 
-    private String formatDateToString(LocalDate date) {
-        return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+    private static HttpClientErrorException notPublished(LocalDate date) {
+        return HttpClientErrorException.create("No table published on " + date, HttpStatus.NOT_FOUND,
+                HttpStatus.NOT_FOUND.getReasonPhrase(), null, null, null);
+    }
+
+    private static HttpClientErrorException notQuoted(Currency currency, RateTable table) {
+        return HttpClientErrorException.create(currency + " is not quoted in table " + table, HttpStatus.NOT_FOUND,
+                HttpStatus.NOT_FOUND.getReasonPhrase(), null, null, null);
+    }
+
+    private Optional<RateNBPResponse> findLocalRate(RateTable table, Currency currency, LocalDate date) {
+        return snapshot.findRate(table, currency, date)
+                .or(() -> archive.findRate(table, currency, date))
+                .or(() -> store.findRate(table, currency, date));
     }
 
     private BigDecimal getAverageExchangeRate(ExchangeRateNBPResponse response) {
@@ -49,76 +155,144 @@ public class ExchangeRateService {
                 .orElseThrow(() -> new NoSuchElementException("Cannot get mid value from received data."));
     }
 
-    public MinMaxAverageValueResponse getMinMaxAverageValueForXDays(String currencyCode, int topCount) {
-        Currency currency = parseCurrencyCode(currencyCode);
-        String exchangeRateApiUrl = String.format(EXCHANGE_RATE_TABLE_A_API_URL, currency + "/last", topCount);
-        ExchangeRateNBPResponse response = getExchangeRateApiResponse(exchangeRateApiUrl);
+    public CompletableFuture<MinMaxAverageValueResponse> getMinMaxAverageValueForXDays(String currencyCode, int topCount) {
+        return getMinMaxAverageValueForXDaysAsOf(currencyCode, topCount).thenApply(AsOf::value);
+    }
 
-        return MinMaxAverageValueResponse.builder()
-                .currencyCode(currency)
-                .currencyName(currency.getDescription())
-                .minAvgValue(getMinAvgRateFromExchangeRateResponse(response))
-                .maxAvgValue(getMaxAvgRateFromExchangeRateResponse(response))
-                .build();
+    public CompletableFuture<AsOf<MinMaxAverageValueResponse>> getMinMaxAverageValueForXDaysAsOf(String currencyCode, int topCount) {
+        Currency currency = parseCurrencyCode(currencyCode);
+        RateTable table = currency.getMidTable();
+        return getLastQuotes(table, currency, topCount)
+                .thenApply(lastQuotes -> new AsOf<>(MinMaxAverageValueResponse.builder()
+                        .currencyCode(currency)
+                        .currencyName(currency.getDescription())
+                        .minAvgValue(lastQuotes.min(topCount)
+                                .orElseThrow(() -> new NoSuchElementException("Cannot get min value from received data."))
+                                .value())
+                        .maxAvgValue(lastQuotes.max(topCount)
+                                .orElseThrow(() -> new NoSuchElementException("Cannot get max value from received data."))
+                                .value())
+                        .build(), effectiveDates(Map.of(table, lastQuotes.latestDate()))));
     }
 
-    private BigDecimal getMinAvgRateFromExchangeRateResponse(ExchangeRateNBPResponse response) {
-        return Collections.min(getAvgRatesFromExchangeRateResponse(response));
+    public CompletableFuture<BidAskDifferenceResponse> getMajorDifferenceBetweenBuyAndAskRate(String currencyCode, int quotations) {
+        return getMajorDifferenceBetweenBuyAndAskRateAsOf(currencyCode, quotations).thenApply(AsOf::value);
     }
 
-    private BigDecimal getMaxAvgRateFromExchangeRateResponse(ExchangeRateNBPResponse response) {
-        return Collections.max(getAvgRatesFromExchangeRateResponse(response));
+    public CompletableFuture<AsOf<BidAskDifferenceResponse>> getMajorDifferenceBetweenBuyAndAskRateAsOf(String currencyCode, int quotations) {
+        Currency currency = parseCurrencyCode(currencyCode);
+        if (!currency.isQuotedIn(RateTable.C)) return CompletableFuture.failedFuture(notQuoted(currency, RateTable.C));
+        return getLastQuotes(RateTable.C, currency, quotations)
+                .thenApply(lastQuotes -> {
+                    DatedValue biggestDifference = lastQuotes.maxSpread(quotations)
+                            .orElseThrow(() -> new NoSuchElementException("Cannot get max value from received data."));
+                    return new AsOf<>(BidAskDifferenceResponse.builder()
+                            .currencyCode(currency)
+                            .currencyName(currency.getDescription())
+                            .date(biggestDifference.date())
+                            .majorDifference(biggestDifference.value())
+                            .build(), effectiveDates(Map.of(RateTable.C, lastQuotes.latestDate())));
+                });
     }
 
-    private List<BigDecimal> getAvgRatesFromExchangeRateResponse(ExchangeRateNBPResponse response) {
-        return response.rates().stream()
-                .map(RateNBPResponse::mid)
-                .toList();
+    public CompletableFuture<RateStatisticsResponse> getStatisticsForXDays(String currencyCode, int quotations) {
+        return getStatisticsForXDaysAsOf(currencyCode, quotations).thenApply(AsOf::value);
     }
 
-    public BidAskDifferenceResponse getMajorDifferenceBetweenBuyAndAskRate(String currencyCode, int quotations) {
+    /**
+     * Summarises the last average rates and, where NBP quotes the currency in table C, its buy and ask rates.
+     * Both tables are fetched concurrently.
+     */
+    public CompletableFuture<AsOf<RateStatisticsResponse>> getStatisticsForXDaysAsOf(String currencyCode, int quotations) {
         Currency currency = parseCurrencyCode(currencyCode);
-        String exchangeRateApiUrl = String.format(EXCHANGE_RATE_TABLE_C_API_URL, currency + "/last", quotations);
-        ExchangeRateNBPResponse response = getExchangeRateApiResponse(exchangeRateApiUrl);
-        Map.Entry<LocalDate, BigDecimal> biggestDifference = getBuyAskMajorDifference(response);
+        RateTable table = currency.getMidTable();
+        CompletableFuture<RateSeries> averageRates = getLastExchangeRates(table, currency, quotations);
+        CompletableFuture<RateSeries> buyAndAskRates = currency.isQuotedIn(RateTable.C)
+                ? getLastExchangeRates(RateTable.C, currency, quotations).exceptionally(orIfNotFound(RateSeries.empty()))
+                : CompletableFuture.completedFuture(RateSeries.empty());
+        return averageRates.thenCombine(buyAndAskRates, (average, buyAndAsk) -> {
+            RateStatistics statistics = RateStatistics.of(average);
+            return new AsOf<>(RateStatisticsResponse.builder()
+                    .currencyCode(currency)
+                    .currencyName(currency.getDescription())
+                    .numOfQuotes(statistics.count())
+                    .minAvgValue(statistics.min().orElse(null))
+                    .maxAvgValue(statistics.max().orElse(null))
+                    .meanAvgValue(statistics.mean().orElse(null))
+                    .medianAvgValue(statistics.median().orElse(null))
+                    .standardDeviation(statistics.standardDeviation().orElse(null))
+                    .majorDifference(RateStatistics.of(buyAndAsk).maxSpread().orElse(null))
+                    .build(), effectiveDates(Map.of(table, average.latestDate(), RateTable.C, buyAndAsk.latestDate())));
+        });
+    }
 
-        return BidAskDifferenceResponse.builder()
-                .currencyCode(currency)
-                .currencyName(currency.getDescription())
-                .date(biggestDifference.getKey())
-                .majorDifference(biggestDifference.getValue())
-                .build();
+    private static Map<RateTable, LocalDate> effectiveDates(Map<RateTable, Optional<LocalDate>> latestDates) {
+        Map<RateTable, LocalDate> effectiveDates = new EnumMap<>(RateTable.class);
+        latestDates.forEach((table, date) -> date.ifPresent(present -> effectiveDates.put(table, present)));
+        return effectiveDates;
+    }
+
+    private CompletableFuture<RateSeries> getLastExchangeRates(RateTable table, Currency currency, int quotations) {
+        return snapshot.findLastRates(table, currency, quotations)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> downloadLastExchangeRates(table, currency, quotations));
+    }
+
+    /**
+     * Answers from the extremes the snapshot keeps for every currency; only when it does not hold the latest
+     * quotes are they downloaded and scanned.
+     */
+    private CompletableFuture<LastQuotes> getLastQuotes(RateTable table, Currency currency, int quotations) {
+        return snapshot.findLastQuotes(table, currency, quotations)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> downloadLastExchangeRates(table, currency, quotations).thenApply(LastQuotes::of));
+    }
+
+    private CompletableFuture<RateSeries> downloadLastExchangeRates(RateTable table, Currency currency, int quotations) {
+        String exchangeRateApiUrl = client.lastExchangeRatesUrl(table, currency, quotations);
+        return cache.getUntilNextPublication(table, exchangeRateApiUrl,
+                        () -> getAndStoreExchangeRateApiResponse(table, currency, exchangeRateApiUrl))
+                .thenApply(response -> RateSeries.of(response.rates()));
     }
 
-    private static Map.Entry<LocalDate, BigDecimal> getBuyAskMajorDifference(ExchangeRateNBPResponse response) {
-        return getBuyAskDifferenceByDate(response).entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .orElseThrow(() -> new NoSuchElementException("Cannot get max value from received data."));
+    private CompletableFuture<RateSeries> getRatesInRange(RateTable table, Currency currency, DateRange range) {
+        return snapshot.findRates(table, currency, range)
+                .or(() -> archive.findRates(table, currency, range))
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> getExchangeRatesInRange(table, currency, range)
+                        .thenApply(response -> RateSeries.of(response.rates())));
     }
 
-    private static Map<LocalDate, BigDecimal> getBuyAskDifferenceByDate(ExchangeRateNBPResponse response) {
-        return response.rates().stream()
-                .collect(Collectors.toMap(
-                        RateNBPResponse::effectiveDate,
-                        rate -> rate.ask().subtract(rate.bid())
-                ));
+    private CompletableFuture<ExchangeRateNBPResponse> getExchangeRatesInRange(RateTable table, Currency currency, DateRange range) {
+        String exchangeRateApiUrl = client.exchangeRatesUrl(table, currency, range);
+        Supplier<CompletableFuture<ExchangeRateNBPResponse>> loader = () ->
+                getAndStoreExchangeRateApiResponse(table, currency, exchangeRateApiUrl)
+                        .exceptionally(orIfNotFound(new ExchangeRateNBPResponse(currency, List.of())));
+        return range.to().isBefore(schedule.latestPublicationDay(table))
+                ? cache.getImmutable(table, exchangeRateApiUrl, loader)
+                : cache.getUntilNextPublication(table, exchangeRateApiUrl, loader);
     }
 
-    private ExchangeRateNBPResponse getExchangeRateApiResponse(String exchangeRateApiUrl) {
-        return Optional.ofNullable(restTemplate.exchange(exchangeRateApiUrl, HttpMethod.GET, null,
-                        new ParameterizedTypeReference<ExchangeRateNBPResponse>() {
-                        }).getBody())
-                .orElseThrow(() -> new NoSuchElementException("Cannot get exchange rate response from received data."));
+    private static <T> Function<Throwable, T> orIfNotFound(T fallback) {
+        return failure -> {
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (cause instanceof HttpClientErrorException.NotFound)
+                return fallback;
+            throw new CompletionException(cause);
+        };
     }
 
-    private Currency parseCurrencyCode(String currencyCode) {
-        if (isValidCurrencyCode(currencyCode))
-            return Currency.valueOf(currencyCode);
-        else throw new IllegalArgumentException("Wrong currencyCode: " + currencyCode);
+    private CompletableFuture<ExchangeRateNBPResponse> getAndStoreExchangeRateApiResponse(RateTable table, Currency currency, String exchangeRateApiUrl) {
+        return client.getExchangeRates(exchangeRateApiUrl)
+                .thenApply(response -> {
+                    if (response.rates() != null) store.saveRates(table, currency, response.rates());
+                    return response;
+                });
     }
 
-    private boolean isValidCurrencyCode(String code) {
-        return Arrays.stream(Currency.values())
-                .anyMatch(c -> c.name().equals(code));
+    public static Currency parseCurrencyCode(String currencyCode) {
+        Currency currency = Currency.fromCode(currencyCode);
+        if (currency == null) throw new IllegalArgumentException("Wrong currencyCode: " + currencyCode);
+        return currency;
     }
 }
@@ -0,0 +1,161 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.archive;
+
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Quotes of one currency from one table, memory-mapped from a file laid out column by column: a header of
+ * {@value #HEADER_BYTES} bytes holding the magic number, the format version and the number of quotes, followed by
+ * the epoch days and table numbers as ints and the mid, bid and ask rates as longs, all in ascending date order.
+ * <p>
+ * Lookups binary search the mapped days, so only the pages they touch are read from disk, and slices are copied
+ * into a {@link RateSeries} without creating objects per quote.
+ */
+final class ArchiveFile {
+
+    static final int MAGIC = 0x4E425041;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    private final RateTable table;
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private ArchiveFile(RateTable table, ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new IllegalStateException("Not an archive file of version " + VERSION);
+        this.table = table;
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+    }
+
+    static ArchiveFile map(Path path, RateTable table) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ArchiveFile(table, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map archive file " + path, e);
+        }
+    }
+
+    /**
+     * Writes the quotes, sorted by date, to a temporary file next to the target and moves it in place, so that
+     * readers see either the previous or the new file in full.
+     */
+    static void write(Path path, Collection<ArchivedQuote> quotes) throws IOException {
+        int size = quotes.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + size * (2 * Integer.BYTES + 3 * Long.BYTES));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(0);
+        for (ArchivedQuote quote : quotes) buffer.putInt(quote.epochDay());
+        for (ArchivedQuote quote : quotes) buffer.putInt(quote.number());
+        for (ArchivedQuote quote : quotes) buffer.putLong(quote.mid());
+        for (ArchivedQuote quote : quotes) buffer.putLong(quote.bid());
+        for (ArchivedQuote quote : quotes) buffer.putLong(quote.ask());
+        Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    Optional<RateNBPResponse> find(LocalDate date) {
+        int index = insertionPoint(date.toEpochDay());
+        if (index == size || epochDay(index) != date.toEpochDay()) return Optional.empty();
+        return Optional.of(new RateNBPResponse(tableNumber(index), date, RateSeries.toDecimal(mid(index)),
+                RateSeries.toDecimal(bid(index)), RateSeries.toDecimal(ask(index))));
+    }
+
+    /**
+     * Copies the quotes published between both dates, inclusive.
+     */
+    RateSeries between(LocalDate from, LocalDate to) {
+        int start = insertionPoint(from.toEpochDay());
+        int length = insertionPoint(to.toEpochDay() + 1) - start;
+        int[] epochDays = new int[length];
+        String[] numbers = new String[length];
+        long[] mids = new long[length];
+        long[] bids = new long[length];
+        long[] asks = new long[length];
+        for (int i = 0; i < length; i++) {
+            epochDays[i] = epochDay(start + i);
+            numbers[i] = tableNumber(start + i);
+            mids[i] = mid(start + i);
+            bids[i] = bid(start + i);
+            asks[i] = ask(start + i);
+        }
+        return RateSeries.ofColumns(epochDays, numbers, mids, bids, asks);
+    }
+
+    List<ArchivedQuote> quotes() {
+        List<ArchivedQuote> quotes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            quotes.add(new ArchivedQuote(epochDay(i), number(i), mid(i), bid(i), ask(i)));
+        }
+        return quotes;
+    }
+
+    private int insertionPoint(long epochDay) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epochDay(middle) < epochDay) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    private int epochDay(int index) {
+        return buffer.getInt(HEADER_BYTES + index * Integer.BYTES);
+    }
+
+    private int number(int index) {
+        return buffer.getInt(HEADER_BYTES + (size + index) * Integer.BYTES);
+    }
+
+    private long mid(int index) {
+        return buffer.getLong(longColumn(0) + index * Long.BYTES);
+    }
+
+    private long bid(int index) {
+        return buffer.getLong(longColumn(1) + index * Long.BYTES);
+    }
+
+    private long ask(int index) {
+        return buffer.getLong(longColumn(2) + index * Long.BYTES);
+    }
+
+    private int longColumn(int column) {
+        return HEADER_BYTES + 2 * size * Integer.BYTES + column * size * Long.BYTES;
+    }
+
+    /**
+     * Rebuilds the full table number, e.g. {@code 001/A/NBP/2023}, or returns {@code null} if the number is unknown.
+     */
+    private String tableNumber(int index) {
+        int number = number(index);
+        if (number <= 0) return null;
+        return "%03d/%s/NBP/%d".formatted(number, table, LocalDate.ofEpochDay(epochDay(index)).getYear());
+    }
+}
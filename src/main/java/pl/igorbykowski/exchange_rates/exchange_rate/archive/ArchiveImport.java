@@ -0,0 +1,207 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.TableRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Imports NBP archive files into the {@link ExchangeRateArchive}. Accepts the yearly CSV files NBP offers for
+ * download, e.g. {@code archiwum_tab_a_2023.csv}, and JSON arrays of tables as returned by the
+ * {@code /exchangerates/tables} endpoints; directories are imported file by file.
+ * <p>
+ * CSV files hold one table per row, starting with its date, and one column per currency, or two in table C for
+ * the buy and sell rates, headed by the number of units the rates refer to and the currency code, e.g.
+ * {@code 100HUF}. Rates are divided by the units, falling back to {@link Currency#getUnitMultiplier()} for headers
+ * without them. Currencies this service does not quote and rows not starting with a date are skipped. The table
+ * is told by the file name or by the full table numbers, e.g. {@code 001/A/NBP/2023}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ArchiveImport {
+
+    private static final Pattern CURRENCY_HEADER = Pattern.compile("(?<![A-Za-z])(\\d*)\\s?([A-Z]{3})(?![A-Za-z])");
+    private static final Pattern DATE = Pattern.compile("\\d{4}-?\\d{2}-?\\d{2}");
+    private static final Pattern TABLE_IN_FILE_NAME = Pattern.compile("tab_?([abc])[^a-z]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FULL_TABLE_NUMBER = Pattern.compile("(\\d+)/([ABC])/NBP/\\d{4}");
+
+    private final ExchangeRateArchive archive;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Reads all files first and then merges their quotes into the archive, one file per table and currency.
+     *
+     * @return number of quotes imported
+     */
+    public int importFiles(List<Path> paths) throws IOException {
+        Map<RateTable, Map<Currency, Map<Integer, ArchivedQuote>>> quotes = new EnumMap<>(RateTable.class);
+        for (Path file : expand(paths)) {
+            log.info("Reading archive file {}", file);
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) readJson(file, quotes);
+            else readCsv(file, quotes);
+        }
+        int imported = 0;
+        for (Map.Entry<RateTable, Map<Currency, Map<Integer, ArchivedQuote>>> table : quotes.entrySet()) {
+            for (Map.Entry<Currency, Map<Integer, ArchivedQuote>> currency : table.getValue().entrySet()) {
+                archive.save(table.getKey(), currency.getKey(), currency.getValue().values());
+                imported += currency.getValue().size();
+            }
+        }
+        log.info("Imported {} quotes", imported);
+        return imported;
+    }
+
+    private void readCsv(Path file, Map<RateTable, Map<Currency, Map<Integer, ArchivedQuote>>> quotes) throws IOException {
+        RateTable fileTable = tableOfFileName(file);
+        List<Column> columns = null;
+        int numberColumn = -1;
+        // Only ASCII is read from the cells, so the Polish names in NBP's Windows-1250 headers do not matter.
+        for (String line : Files.readAllLines(file, StandardCharsets.ISO_8859_1)) {
+            String[] cells = line.split(";", -1);
+            String first = cells[0].trim();
+            if (first.equalsIgnoreCase("data")) {
+                columns = columns(cells);
+                numberColumn = numberColumn(cells);
+                continue;
+            }
+            if (columns == null || !DATE.matcher(first).matches()) continue;
+            int epochDay = Math.toIntExact(LocalDate.parse(first.replace("-", ""), DateTimeFormatter.BASIC_ISO_DATE).toEpochDay());
+            String numberCell = numberColumn < 0 || numberColumn >= cells.length ? "" : cells[numberColumn].trim();
+            RateTable table = fileTable != null ? fileTable : tableOfNumber(numberCell);
+            if (table == null) throw new IllegalArgumentException("Cannot tell the table of archive file " + file);
+            for (Column column : columns) {
+                long firstRate = rate(cells, column.first(), column.units());
+                long secondRate = column.second() < 0 ? RateSeries.ABSENT : rate(cells, column.second(), column.units());
+                if (firstRate == RateSeries.ABSENT && secondRate == RateSeries.ABSENT) continue;
+                ArchivedQuote quote = column.second() < 0
+                        ? new ArchivedQuote(epochDay, numberOf(numberCell), firstRate, RateSeries.ABSENT, RateSeries.ABSENT)
+                        : new ArchivedQuote(epochDay, numberOf(numberCell), RateSeries.ABSENT, firstRate, secondRate);
+                add(quotes, table, column.currency(), quote);
+            }
+        }
+        if (columns == null) throw new IllegalArgumentException("No header row in archive file " + file);
+    }
+
+    private void readJson(Path file, Map<RateTable, Map<Currency, Map<Integer, ArchivedQuote>>> quotes) throws IOException {
+        for (ExchangeRateTableNBPResponse table : objectMapper.readValue(file.toFile(), ExchangeRateTableNBPResponse[].class)) {
+            RateTable rateTable = RateTable.valueOf(table.table());
+            int epochDay = Math.toIntExact(table.effectiveDate().toEpochDay());
+            for (TableRateNBPResponse rate : table.rates()) {
+                Currency currency = Currency.fromCode(rate.code());
+                if (currency == null) continue;
+                add(quotes, rateTable, currency, new ArchivedQuote(epochDay, numberOf(table.no()),
+                        RateSeries.toScaled(rate.mid()), RateSeries.toScaled(rate.bid()), RateSeries.toScaled(rate.ask())));
+            }
+        }
+    }
+
+    /**
+     * Maps each currency to its column, or to its pair of columns when its code heads two columns or is followed
+     * by a column without a header.
+     */
+    private static List<Column> columns(String[] header) {
+        Map<Currency, Column> columns = new LinkedHashMap<>();
+        for (int i = 1; i < header.length; i++) {
+            Matcher matcher = CURRENCY_HEADER.matcher(header[i].trim());
+            if (!matcher.matches()) continue;
+            Currency currency = Currency.fromCode(matcher.group(2));
+            if (currency == null) continue;
+            int units = matcher.group(1).isEmpty() ? currency.getUnitMultiplier() : Integer.parseInt(matcher.group(1));
+            Column previous = columns.get(currency);
+            if (previous != null) {
+                columns.put(currency, new Column(currency, units, previous.first(), i));
+            } else if (i + 1 < header.length && header[i + 1].isBlank()) {
+                columns.put(currency, new Column(currency, units, i, i + 1));
+            } else {
+                columns.put(currency, new Column(currency, units, i, -1));
+            }
+        }
+        return new ArrayList<>(columns.values());
+    }
+
+    private static int numberColumn(String[] header) {
+        int column = -1;
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].toLowerCase(Locale.ROOT).contains("tabeli")) column = i;
+        }
+        return column;
+    }
+
+    private static long rate(String[] cells, int column, int units) {
+        String cell = column < cells.length ? cells[column].trim() : "";
+        if (cell.isEmpty()) return RateSeries.ABSENT;
+        BigDecimal rate = new BigDecimal(cell.replace(',', '.'));
+        return RateSeries.toScaled(rate.divide(BigDecimal.valueOf(units), RateSeries.SCALE, RoundingMode.HALF_EVEN));
+    }
+
+    private static int numberOf(String tableNumber) {
+        if (tableNumber == null) return 0;
+        int end = tableNumber.indexOf('/');
+        try {
+            return Integer.parseInt((end < 0 ? tableNumber : tableNumber.substring(0, end)).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static RateTable tableOfFileName(Path file) {
+        Matcher matcher = TABLE_IN_FILE_NAME.matcher(file.getFileName().toString());
+        return matcher.find() ? RateTable.valueOf(matcher.group(1).toUpperCase(Locale.ROOT)) : null;
+    }
+
+    private static RateTable tableOfNumber(String tableNumber) {
+        Matcher matcher = FULL_TABLE_NUMBER.matcher(tableNumber);
+        return matcher.matches() ? RateTable.valueOf(matcher.group(2)) : null;
+    }
+
+    private static void add(Map<RateTable, Map<Currency, Map<Integer, ArchivedQuote>>> quotes,
+                            RateTable table, Currency currency, ArchivedQuote quote) {
+        quotes.computeIfAbsent(table, key -> new EnumMap<>(Currency.class))
+                .computeIfAbsent(currency, key -> new TreeMap<>())
+                .put(quote.epochDay(), quote);
+    }
+
+    private static List<Path> expand(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (!Files.isDirectory(path)) {
+                files.add(path);
+                continue;
+            }
+            try (Stream<Path> children = Files.list(path)) {
+                children.filter(child -> child.toString().toLowerCase(Locale.ROOT).matches(".*\\.(csv|json)"))
+                        .sorted()
+                        .forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    private record Column(Currency currency, int units, int first, int second) {
+    }
+}
@@ -0,0 +1,39 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.archive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Imports the archive files given as {@code --import-archive=path[,path...]} and exits, e.g.
+ * {@code java -jar exchange-rates.jar --spring.main.web-application-type=none --nbp.ingestion.enabled=false
+ * --import-archive=archiwum_tab_a_2023.csv}. Without the option the application starts as usual.
+ */
+@Component
+@RequiredArgsConstructor
+class ArchiveImportRunner implements ApplicationRunner {
+
+    static final String OPTION = "import-archive";
+
+    private final ArchiveImport archiveImport;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments arguments) throws IOException {
+        if (!arguments.containsOption(OPTION)) return;
+        List<Path> paths = arguments.getOptionValues(OPTION).stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(Path::of)
+                .toList();
+        archiveImport.importFiles(paths);
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,16 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.archive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * @param directory directory holding the imported archive, one file per table and currency; a missing directory
+ *                  means an empty archive
+ */
+@ConfigurationProperties("nbp.archive")
+public record ArchiveProperties(
+        @DefaultValue("archive") Path directory
+) {
+}
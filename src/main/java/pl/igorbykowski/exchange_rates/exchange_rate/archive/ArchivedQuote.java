@@ -0,0 +1,8 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.archive;
+
+/**
+ * One quote of a currency as stored in the archive: the day, the number of the table within its year, and the
+ * rates scaled like {@link pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries}.
+ */
+record ArchivedQuote(int epochDay, int number, long mid, long bid, long ask) {
+}
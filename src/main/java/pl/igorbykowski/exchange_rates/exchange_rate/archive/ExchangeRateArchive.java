@@ -0,0 +1,131 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.archive;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationCalendar;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Historical quotes imported from NBP archive files by {@link ArchiveImport}, kept on disk with one
+ * {@link ArchiveFile} per table and currency. Files are mapped on the first lookup of their currency, so starting
+ * the application reads nothing, and the quotes stay in the page cache rather than on the heap.
+ * <p>
+ * Lookups are published as {@value #LOOKUPS_METRIC} by result, and the number of mapped files as
+ * {@value #MAPPED_FILES_METRIC}.
+ */
+@Slf4j
+@Component
+public class ExchangeRateArchive implements MeterBinder {
+
+    static final String LOOKUPS_METRIC = "exchange.rates.archive.lookups";
+    static final String MAPPED_FILES_METRIC = "exchange.rates.archive.mapped.files";
+
+    private final Path directory;
+    private final PublicationCalendar calendar;
+    private final Map<Key, Optional<ArchiveFile>> files = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ExchangeRateArchive(ArchiveProperties properties, PublicationCalendar calendar) {
+        this.directory = properties.directory();
+        this.calendar = calendar;
+    }
+
+    public Optional<RateNBPResponse> findRate(RateTable table, Currency currency, LocalDate date) {
+        return counted(file(table, currency).flatMap(file -> file.find(date)));
+    }
+
+    /**
+     * Returns the quotes published within the range in ascending date order, provided the archive holds a quote
+     * for every day on which NBP published the table within the range.
+     */
+    public Optional<RateSeries> findRates(RateTable table, Currency currency, DateRange range) {
+        return counted(file(table, currency)
+                .map(file -> file.between(range.from(), range.to()))
+                .filter(rates -> rates.size() == publicationDays(table, range)));
+    }
+
+    /**
+     * Adds the quotes to the file of the currency, replacing the ones of the same days, and maps the new file on
+     * the next lookup.
+     */
+    void save(RateTable table, Currency currency, Collection<ArchivedQuote> quotes) throws IOException {
+        Path path = path(table, currency);
+        Map<Integer, ArchivedQuote> merged = new TreeMap<>();
+        if (Files.exists(path)) {
+            for (ArchivedQuote quote : ArchiveFile.map(path, table).quotes()) merged.put(quote.epochDay(), quote);
+        }
+        for (ArchivedQuote quote : quotes) merged.put(quote.epochDay(), quote);
+        Files.createDirectories(directory);
+        ArchiveFile.write(path, merged.values());
+        files.remove(new Key(table, currency));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(LOOKUPS_METRIC, hits, LongAdder::sum)
+                .description("Lookups of quotes answered from the archive")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(LOOKUPS_METRIC, misses, LongAdder::sum)
+                .description("Lookups of quotes answered from the archive")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder(MAPPED_FILES_METRIC, files, mapped -> mapped.values().stream().filter(Optional::isPresent).count())
+                .description("Archive files mapped into memory")
+                .register(registry);
+    }
+
+    private Optional<ArchiveFile> file(RateTable table, Currency currency) {
+        return files.computeIfAbsent(new Key(table, currency), key -> {
+            Path path = path(table, currency);
+            if (!Files.isRegularFile(path)) return Optional.empty();
+            try {
+                return Optional.of(ArchiveFile.map(path, table));
+            } catch (UncheckedIOException | IllegalStateException e) {
+                log.warn("Ignoring archive file {}: {}", path, e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    private Path path(RateTable table, Currency currency) {
+        return directory.resolve(table + "-" + currency + ".rates");
+    }
+
+    private int publicationDays(RateTable table, DateRange range) {
+        int days = 0;
+        for (LocalDate date = range.from(); !date.isAfter(range.to()); date = date.plusDays(1)) {
+            if (calendar.isPublicationDay(table, date)) days++;
+        }
+        return days;
+    }
+
+    private <T> Optional<T> counted(Optional<T> result) {
+        (result.isPresent() ? hits : misses).increment();
+        return result;
+    }
+
+    private record Key(RateTable table, Currency currency) {
+    }
+}
@@ -0,0 +1,22 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.batch;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import pl.igorbykowski.exchange_rates.exchange_rate.rate_limit.RateLimitedRequest;
+
+import java.util.List;
+
+public record AverageExchangeRateBatchRequest(
+        @NotEmpty(message = "queries must not be empty")
+        @Size(max = AverageExchangeRateBatchRequest.MAX_QUERIES, message = "queries must not contain more than 1000 elements")
+        List<@Valid AverageExchangeRateQuery> queries
+) implements RateLimitedRequest {
+
+    static final int MAX_QUERIES = 1000;
+
+    @Override
+    public int cost(int quotesPerToken) {
+        return queries == null ? 1 : Math.max(1, Math.min(queries.size(), MAX_QUERIES));
+    }
+}
@@ -0,0 +1,12 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.batch;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+public record AverageExchangeRateQuery(
+        @NotBlank(message = "currencyCode must not be blank") String currencyCode,
+        @NotNull(message = "date must not be null") LocalDate date
+) {
+}
@@ -0,0 +1,13 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchQueryError(
+        String currencyCode,
+        LocalDate date,
+        String message
+) {
+}
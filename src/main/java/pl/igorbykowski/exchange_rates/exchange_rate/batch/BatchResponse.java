@@ -0,0 +1,9 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.batch;
+
+import java.util.List;
+
+public record BatchResponse<T>(
+        List<T> results,
+        List<BatchQueryError> errors
+) {
+}
@@ -0,0 +1,40 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.batch;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.difference.BidAskDifferenceResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.min_max.MinMaxAverageValueResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/v1/exchange-rates")
+@RequiredArgsConstructor
+public class ExchangeRateBatchController {
+
+    private final ExchangeRateBatchService service;
+
+    @PostMapping("/average/batch")
+    public CompletableFuture<ResponseEntity<BatchResponse<AverageExchangeRateResponse>>> getAverageExchangeRates(@Valid @RequestBody AverageExchangeRateBatchRequest request) {
+        return service.getAverageExchangeRates(request.queries())
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/min-max/batch")
+    public CompletableFuture<ResponseEntity<BatchResponse<MinMaxAverageValueResponse>>> getMinMaxAverageValues(@Valid @RequestBody MultiCurrencyQuotesRequest request) {
+        return service.getMinMaxAverageValues(request)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/difference/batch")
+    public CompletableFuture<ResponseEntity<BatchResponse<BidAskDifferenceResponse>>> getMajorDifferences(@Valid @RequestBody MultiCurrencyQuotesRequest request) {
+        return service.getMajorDifferences(request)
+                .thenApply(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,118 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.batch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import pl.igorbykowski.exchange_rates.exchange_rate.ExchangeRateService;
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.difference.BidAskDifferenceResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.min_max.MinMaxAverageValueResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClient;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Answers many queries in one call. Lookups for different currencies run in parallel, and all dates of one
+ * currency are resolved together, so a failure only affects the queries it concerns.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExchangeRateBatchService {
+    private static final String NOT_PUBLISHED_MSG = "No exchange rate published on this date";
+    private static final String NOT_FOUND_MSG = "Resource Not Found";
+    private static final String UNAVAILABLE_MSG = "NBP API is unavailable, try again later";
+
+    private final ExchangeRateService service;
+
+    public CompletableFuture<BatchResponse<AverageExchangeRateResponse>> getAverageExchangeRates(List<AverageExchangeRateQuery> queries) {
+        Map<String, Set<LocalDate>> datesByCurrency = queries.stream()
+                .collect(Collectors.groupingBy(AverageExchangeRateQuery::currencyCode, LinkedHashMap::new,
+                        Collectors.mapping(AverageExchangeRateQuery::date, Collectors.toCollection(TreeSet::new))));
+        Map<String, CompletableFuture<Outcome<Map<LocalDate, AverageExchangeRateResponse>>>> lookups = new LinkedHashMap<>();
+        datesByCurrency.forEach((currencyCode, dates) -> lookups.put(currencyCode,
+                outcomeOf(() -> service.getAverageExchangeRatesByDatesAndCurrency(currencyCode, dates)
+                        .thenApply(ExchangeRateBatchService::byDate))));
+
+        return allOf(lookups.values()).thenApply(ignored -> {
+            List<AverageExchangeRateResponse> results = new ArrayList<>();
+            List<BatchQueryError> errors = new ArrayList<>();
+            for (AverageExchangeRateQuery query : queries) {
+                Outcome<Map<LocalDate, AverageExchangeRateResponse>> outcome = lookups.get(query.currencyCode()).join();
+                if (outcome.failure() != null) {
+                    errors.add(new BatchQueryError(query.currencyCode(), query.date(), errorMessage(outcome.failure())));
+                } else if (outcome.value().containsKey(query.date())) {
+                    results.add(outcome.value().get(query.date()));
+                } else {
+                    errors.add(new BatchQueryError(query.currencyCode(), query.date(), NOT_PUBLISHED_MSG));
+                }
+            }
+            return new BatchResponse<>(results, errors);
+        });
+    }
+
+    public CompletableFuture<BatchResponse<MinMaxAverageValueResponse>> getMinMaxAverageValues(MultiCurrencyQuotesRequest request) {
+        return forEachCurrency(request.currencyCodes(),
+                currencyCode -> service.getMinMaxAverageValueForXDays(currencyCode, request.numOfQuotes()));
+    }
+
+    public CompletableFuture<BatchResponse<BidAskDifferenceResponse>> getMajorDifferences(MultiCurrencyQuotesRequest request) {
+        return forEachCurrency(request.currencyCodes(),
+                currencyCode -> service.getMajorDifferenceBetweenBuyAndAskRate(currencyCode, request.numOfQuotes()));
+    }
+
+    private <T> CompletableFuture<BatchResponse<T>> forEachCurrency(List<String> currencyCodes,
+                                                                    Function<String, CompletableFuture<T>> lookup) {
+        Map<String, CompletableFuture<Outcome<T>>> lookups = new LinkedHashMap<>();
+        currencyCodes.forEach(currencyCode -> lookups.computeIfAbsent(currencyCode,
+                code -> outcomeOf(() -> lookup.apply(code))));
+
+        return allOf(lookups.values()).thenApply(ignored -> {
+            List<T> results = new ArrayList<>();
+            List<BatchQueryError> errors = new ArrayList<>();
+            lookups.forEach((currencyCode, future) -> {
+                Outcome<T> outcome = future.join();
+                if (outcome.failure() != null)
+                    errors.add(new BatchQueryError(currencyCode, null, errorMessage(outcome.failure())));
+                else results.add(outcome.value());
+            });
+            return new BatchResponse<>(results, errors);
+        });
+    }
+
+    private static Map<LocalDate, AverageExchangeRateResponse> byDate(List<AverageExchangeRateResponse> responses) {
+        return responses.stream()
+                .collect(Collectors.toMap(AverageExchangeRateResponse::date, Function.identity()));
+    }
+
+    private static <T> CompletableFuture<Outcome<T>> outcomeOf(Supplier<CompletableFuture<T>> lookup) {
+        CompletableFuture<T> future;
+        try {
+            future = lookup.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle(Outcome::new);
+    }
+
+    private static CompletableFuture<Void> allOf(Collection<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+    }
+
+    private static String errorMessage(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof HttpClientErrorException exception && exception.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND))
+            return NOT_FOUND_MSG;
+        if (NbpApiClient.isUnavailable(cause)) return UNAVAILABLE_MSG;
+        return cause.getMessage();
+    }
+
+    private record Outcome<T>(T value, Throwable failure) {
+    }
+}
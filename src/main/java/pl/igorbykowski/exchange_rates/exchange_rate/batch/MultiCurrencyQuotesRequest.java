@@ -0,0 +1,31 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.batch;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import pl.igorbykowski.exchange_rates.exchange_rate.rate_limit.RateLimitedRequest;
+
+import java.util.List;
+
+public record MultiCurrencyQuotesRequest(
+        @NotEmpty(message = "currencyCodes must not be empty")
+        @Size(max = MultiCurrencyQuotesRequest.MAX_CURRENCIES, message = "currencyCodes must not contain more than 100 elements")
+        List<String> currencyCodes,
+        @Min(value = 1, message = "numOfQuotes must be at least 1")
+        @Max(value = MultiCurrencyQuotesRequest.MAX_QUOTES, message = "numOfQuotes must not be greater than 255")
+        int numOfQuotes
+) implements RateLimitedRequest {
+
+    static final int MAX_CURRENCIES = 100;
+    static final int MAX_QUOTES = 255;
+
+    /**
+     * Charges every currency like a last N quotes request of its own.
+     */
+    @Override
+    public int cost(int quotesPerToken) {
+        int currencies = currencyCodes == null ? 1 : Math.max(1, Math.min(currencyCodes.size(), MAX_CURRENCIES));
+        return currencies * (1 + Math.max(0, Math.min(numOfQuotes, MAX_QUOTES)) / quotesPerToken);
+    }
+}
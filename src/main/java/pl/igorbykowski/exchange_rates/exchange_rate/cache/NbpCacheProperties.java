@@ -0,0 +1,24 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maximumSize          maximum number of NBP responses kept in memory; 0 disables caching
+ * @param staleWhileRevalidate how long after the next publication the last N quotes are still served from the cache
+ *                             while they are downloaded again in the background
+ * @param staleIfError         how long after the next publication the last N quotes are still served from the cache
+ *                             when NBP cannot be reached to download them again
+ * @param latePublicationRetry how long the last N quotes are cached when they do not include the table scheduled for
+ *                             the latest publication yet, because NBP publishes it late
+ */
+@ConfigurationProperties("nbp.cache")
+public record NbpCacheProperties(
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("1m") Duration staleWhileRevalidate,
+        @DefaultValue("24h") Duration staleIfError,
+        @DefaultValue("5m") Duration latePublicationRetry
+) {
+}
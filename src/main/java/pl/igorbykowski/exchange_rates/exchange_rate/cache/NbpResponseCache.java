@@ -0,0 +1,175 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClient;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache of NBP responses keyed by request URL.
+ * <p>
+ * Responses for dates that are already published never change, so they stay cached until evicted by size. Responses for
+ * the last N quotes, or for ranges reaching the latest publication, are only valid until NBP publishes the next table,
+ * provided they already include that latest table; when NBP publishes late, the previous table is kept only for a short
+ * retry interval and then downloaded again. After that they become stale: for a short while they are still served while
+ * a fresh copy is downloaded in the background, and for a longer while they are served instead of failing when NBP
+ * cannot be reached.
+ * <p>
+ * Hits, misses and evictions are published as the {@code cache.*} metrics of the {@value #CACHE_NAME} cache, and
+ * responses served stale as {@value #STALE_METRIC}.
+ */
+@Slf4j
+@Component
+public class NbpResponseCache implements MeterBinder {
+
+    static final String CACHE_NAME = "nbp-responses";
+    static final String STALE_METRIC = "nbp.responses.stale";
+
+    private final Cache<Key, Entry> cache;
+    private final Ticker ticker;
+    private final PublicationSchedule schedule;
+    private final long staleWhileRevalidateNanos;
+    private final long staleIfErrorNanos;
+    private final long latePublicationRetryNanos;
+    private final LongAdder staleServed = new LongAdder();
+
+    @Autowired
+    public NbpResponseCache(NbpCacheProperties properties, PublicationSchedule schedule) {
+        this(properties, schedule, Ticker.systemTicker());
+    }
+
+    NbpResponseCache(NbpCacheProperties properties, PublicationSchedule schedule, Ticker ticker) {
+        this.ticker = ticker;
+        this.schedule = schedule;
+        this.staleWhileRevalidateNanos = properties.staleWhileRevalidate().toNanos();
+        this.staleIfErrorNanos = properties.staleIfError().toNanos();
+        this.latePublicationRetryNanos = properties.latePublicationRetry().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new StalenessExpiry(Math.max(staleWhileRevalidateNanos, staleIfErrorNanos)))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    public CompletableFuture<ExchangeRateNBPResponse> getImmutable(RateTable table, String url,
+                                                                   Supplier<CompletableFuture<ExchangeRateNBPResponse>> loader) {
+        return get(new Key(table, url, false), loader);
+    }
+
+    public CompletableFuture<ExchangeRateNBPResponse> getUntilNextPublication(RateTable table, String url,
+                                                                              Supplier<CompletableFuture<ExchangeRateNBPResponse>> loader) {
+        return get(new Key(table, url, true), loader);
+    }
+
+    private CompletableFuture<ExchangeRateNBPResponse> get(Key key, Supplier<CompletableFuture<ExchangeRateNBPResponse>> loader) {
+        Entry cached = cache.getIfPresent(key);
+        if (cached == null) return load(key, loader);
+        long staleFor = ticker.read() - cached.staleAt();
+        if (staleFor < 0) return CompletableFuture.completedFuture(cached.response());
+        if (staleFor < staleWhileRevalidateNanos) {
+            load(key, loader).exceptionally(failure -> {
+                log.debug("Cannot refresh stale NBP response from {}", key.url(), failure);
+                return null;
+            });
+            return servedStale(cached);
+        }
+        if (staleFor >= staleIfErrorNanos) return load(key, loader);
+        return load(key, loader).exceptionallyCompose(failure -> {
+            if (!NbpApiClient.isUnavailable(failure)) return CompletableFuture.failedFuture(failure);
+            log.warn("Serving stale NBP response from {}: {}", key.url(), failure.getMessage());
+            return servedStale(cached);
+        });
+    }
+
+    private CompletableFuture<ExchangeRateNBPResponse> load(Key key, Supplier<CompletableFuture<ExchangeRateNBPResponse>> loader) {
+        return loader.get().thenApply(response -> {
+            long freshFor = key.latestQuotes() ? freshForNanos(key.table(), response) : Long.MAX_VALUE;
+            cache.put(key, new Entry(response, freshFor == Long.MAX_VALUE ? Long.MAX_VALUE : ticker.read() + freshFor));
+            return response;
+        });
+    }
+
+    private long freshForNanos(RateTable table, ExchangeRateNBPResponse response) {
+        long untilNextPublication = schedule.timeToNextPublication(table).toNanos();
+        if (includesLatestPublication(table, response)) return untilNextPublication;
+        return Math.min(latePublicationRetryNanos, untilNextPublication);
+    }
+
+    private boolean includesLatestPublication(RateTable table, ExchangeRateNBPResponse response) {
+        if (response.rates() == null) return false;
+        LocalDate latestPublicationDay = schedule.latestPublicationDay(table);
+        return response.rates().stream()
+                .map(RateNBPResponse::effectiveDate)
+                .anyMatch(latestPublicationDay::equals);
+    }
+
+    private CompletableFuture<ExchangeRateNBPResponse> servedStale(Entry entry) {
+        staleServed.increment();
+        return CompletableFuture.completedFuture(entry.response());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        FunctionCounter.builder(STALE_METRIC, staleServed, LongAdder::sum)
+                .description("NBP responses served after the publication of a newer table")
+                .register(registry);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private record Key(RateTable table, String url, boolean latestQuotes) {
+    }
+
+    /**
+     * @param staleAt ticker time at which the response should be downloaded again, or {@link Long#MAX_VALUE} if never
+     */
+    private record Entry(ExchangeRateNBPResponse response, long staleAt) {
+    }
+
+    /**
+     * Keeps every entry until it has been stale for {@code retainStaleNanos}.
+     */
+    private record StalenessExpiry(long retainStaleNanos) implements Expiry<Key, Entry> {
+        @Override
+        public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+            if (entry.staleAt() == Long.MAX_VALUE) return Long.MAX_VALUE;
+            return Math.max(0, entry.staleAt() - currentTime) + retainStaleNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
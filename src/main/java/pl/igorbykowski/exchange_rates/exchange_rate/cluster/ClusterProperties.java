@@ -0,0 +1,20 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cluster;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled       whether several replicas share the database, with only one of them downloading each table
+ * @param nodeId        name of this replica in the leases; a random one if empty
+ * @param leaseDuration how long a replica stays the only one downloading a table after it last did; must exceed
+ *                      the time the ingestion of a table takes, including retries
+ */
+@ConfigurationProperties("nbp.cluster")
+public record ClusterProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("") String nodeId,
+        @DefaultValue("15m") Duration leaseDuration
+) {
+}
@@ -0,0 +1,27 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cluster;
+
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Decides which replica downloads each table from NBP. The others read the tables it saved in the shared store.
+ */
+public interface IngestionLeadership {
+
+    /**
+     * Returns whether this replica should download the table now, extending its lease if it already holds it.
+     */
+    boolean tryLead(RateTable table);
+
+    /**
+     * Records that the tables up to the date are saved in the shared store.
+     */
+    void ingested(RateTable table, LocalDate upTo);
+
+    /**
+     * Returns the date up to which the leading replica saved the tables in the shared store.
+     */
+    Optional<LocalDate> ingestedUpTo(RateTable table);
+}
@@ -0,0 +1,36 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cluster;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "ingestion_lease")
+@Getter
+@Setter
+@NoArgsConstructor
+public class IngestionLease {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rate_table", length = 1)
+    private RateTable rateTable;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    private LocalDate ingestedUpTo;
+}
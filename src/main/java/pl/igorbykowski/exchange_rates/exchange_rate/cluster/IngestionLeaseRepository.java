@@ -0,0 +1,44 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cluster;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+interface IngestionLeaseRepository extends JpaRepository<IngestionLease, RateTable> {
+
+    /**
+     * Takes over the lease if it expired or extends it if the owner already holds it, in a single statement so that
+     * only one replica can win.
+     *
+     * @return 1 if the owner holds the lease now, 0 otherwise
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update IngestionLease l set l.owner = :owner, l.expiresAt = :expiresAt " +
+            "where l.rateTable = :rateTable and (l.owner = :owner or l.expiresAt < :now)")
+    int acquire(@Param("rateTable") RateTable rateTable, @Param("owner") String owner,
+                @Param("expiresAt") Instant expiresAt, @Param("now") Instant now);
+
+    /**
+     * Fails with a constraint violation if another replica created the lease first; unlike {@code save}, never
+     * overwrites it.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into ingestion_lease (rate_table, owner, expires_at) values (:rateTable, :owner, :expiresAt)",
+            nativeQuery = true)
+    void create(@Param("rateTable") String rateTable, @Param("owner") String owner, @Param("expiresAt") Instant expiresAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update IngestionLease l set l.ingestedUpTo = :upTo " +
+            "where l.rateTable = :rateTable and l.owner = :owner " +
+            "and (l.ingestedUpTo is null or l.ingestedUpTo < :upTo)")
+    int ingested(@Param("rateTable") RateTable rateTable, @Param("owner") String owner, @Param("upTo") LocalDate upTo);
+}
@@ -0,0 +1,62 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Leadership of replicas sharing a database: the replica holding the lease of a table in the
+ * {@code ingestion_lease} table downloads it. A lease is taken over once it has not been extended for
+ * {@link ClusterProperties#leaseDuration()}, so another replica takes over the downloads when the leader stops.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "nbp.cluster.enabled", havingValue = "true")
+public class LeaseLeadership implements IngestionLeadership {
+
+    private final IngestionLeaseRepository repository;
+    private final Clock clock;
+    private final String nodeId;
+    private final Duration leaseDuration;
+
+    public LeaseLeadership(IngestionLeaseRepository repository, ClusterProperties properties, Clock clock) {
+        this.repository = repository;
+        this.clock = clock;
+        this.nodeId = properties.nodeId().isBlank() ? UUID.randomUUID().toString() : properties.nodeId();
+        this.leaseDuration = properties.leaseDuration();
+    }
+
+    @Override
+    public boolean tryLead(RateTable table) {
+        Instant now = Instant.now(clock);
+        if (repository.acquire(table, nodeId, now.plus(leaseDuration), now) == 1) return true;
+        if (repository.existsById(table)) return false;
+        try {
+            repository.create(table.name(), nodeId, now.plus(leaseDuration));
+            log.info("Replica {} leads the ingestion of table {}.", nodeId, table);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Another replica created the lease first
+            return false;
+        }
+    }
+
+    @Override
+    public void ingested(RateTable table, LocalDate upTo) {
+        repository.ingested(table, nodeId, upTo);
+    }
+
+    @Override
+    public Optional<LocalDate> ingestedUpTo(RateTable table) {
+        return repository.findById(table).map(IngestionLease::getIngestedUpTo);
+    }
+}
@@ -0,0 +1,30 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Leadership of a replica running alone: it downloads every table itself.
+ */
+@Component
+@ConditionalOnProperty(name = "nbp.cluster.enabled", havingValue = "false", matchIfMissing = true)
+public class SingleNodeLeadership implements IngestionLeadership {
+
+    @Override
+    public boolean tryLead(RateTable table) {
+        return true;
+    }
+
+    @Override
+    public void ingested(RateTable table, LocalDate upTo) {
+    }
+
+    @Override
+    public Optional<LocalDate> ingestedUpTo(RateTable table) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,40 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.conversion;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.http_cache.ResponseCaching;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.DateResolution;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/v1/exchange-rates")
+@RequiredArgsConstructor
+public class ConversionController {
+
+    private final ConversionService service;
+    private final ResponseCaching caching;
+
+    @GetMapping("/convert/{from}/{to}/{date}")
+    public CompletableFuture<ResponseEntity<ConversionResponse>> convert(@PathVariable("from") String from,
+                                                                         @PathVariable("to") String to,
+                                                                         @PathVariable("date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+                                                                         @RequestParam(name = "amount", defaultValue = "1") BigDecimal amount,
+                                                                         @RequestParam(name = "resolution", defaultValue = "EXACT") DateResolution resolution,
+                                                                         WebRequest request) {
+        ConversionService.parseCode(from);
+        ConversionService.parseCode(to);
+        return caching.respondUpTo(request, RateTable.A, date,
+                () -> service.convert(from, to, date, amount, resolution), ConversionResponse::date);
+    }
+}
@@ -0,0 +1,13 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.conversion;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param cachedTables maximum number of tables older than the snapshot kept in memory after a conversion fetched them
+ */
+@ConfigurationProperties("nbp.conversion")
+public record ConversionProperties(
+        @DefaultValue("1000") long cachedTables
+) {
+}
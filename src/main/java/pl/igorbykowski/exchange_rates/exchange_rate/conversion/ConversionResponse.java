@@ -0,0 +1,17 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.conversion;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Builder
+public record ConversionResponse(
+        String from,
+        String to,
+        LocalDate date,
+        BigDecimal amount,
+        BigDecimal rate,
+        BigDecimal convertedAmount
+) {
+}
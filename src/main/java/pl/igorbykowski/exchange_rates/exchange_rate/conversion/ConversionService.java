@@ -0,0 +1,134 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.conversion;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.ExchangeRateService;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClient;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.DateResolution;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.ExchangeRateTableSnapshot;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.TableRates;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Converts amounts between any two currencies of table A, or the złoty, through their mid rates against PLN.
+ * <p>
+ * Tables are read from the snapshot. Older tables are downloaded whole, once per day, and kept in a bounded cache,
+ * so a conversion never needs a separate NBP query per currency. The mid rates are exact fixed-point values; only
+ * the resulting rate and amount are rounded, to {@value #RATE_SCALE} and {@value #AMOUNT_SCALE} decimal places.
+ * <p>
+ * Hits, misses and evictions of the cache are published as the {@code cache.*} metrics of the {@value #CACHE_NAME}
+ * cache.
+ */
+@Service
+public class ConversionService implements MeterBinder {
+
+    static final String PLN = "PLN";
+    static final String CACHE_NAME = "nbp-tables";
+    static final int RATE_SCALE = 10;
+    static final int AMOUNT_SCALE = 6;
+    private static final long PLN_MID = RateSeries.toScaled(BigDecimal.ONE);
+
+    private final NbpApiClient client;
+    private final ExchangeRateTableSnapshot snapshot;
+    private final PublicationSchedule schedule;
+    private final Cache<LocalDate, TableRates> tables;
+
+    public ConversionService(NbpApiClient client, ExchangeRateTableSnapshot snapshot, PublicationSchedule schedule,
+                             ConversionProperties properties) {
+        this.client = client;
+        this.snapshot = snapshot;
+        this.schedule = schedule;
+        this.tables = Caffeine.newBuilder()
+                .maximumSize(properties.cachedTables())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Converts the amount using the table A the date resolves to. Dates on which NBP publishes no table are
+     * answered as not found without calling NBP.
+     */
+    public CompletableFuture<ConversionResponse> convert(String fromCode, String toCode, LocalDate requestedDate,
+                                                         BigDecimal amount, DateResolution resolution) {
+        Optional<Currency> from = parseCode(fromCode);
+        Optional<Currency> to = parseCode(toCode);
+        LocalDate date = schedule.resolve(RateTable.A, requestedDate, resolution);
+        if (!schedule.isPublished(RateTable.A, date))
+            return CompletableFuture.failedFuture(notFound("No table published on " + requestedDate));
+        return getTable(date).thenApply(table -> {
+            BigDecimal fromMid = BigDecimal.valueOf(midOf(table, from, fromCode));
+            BigDecimal toMid = BigDecimal.valueOf(midOf(table, to, toCode));
+            return ConversionResponse.builder()
+                    .from(from.map(Currency::name).orElse(PLN))
+                    .to(to.map(Currency::name).orElse(PLN))
+                    .date(date)
+                    .amount(amount)
+                    .rate(stripped(fromMid.divide(toMid, RATE_SCALE, RoundingMode.HALF_EVEN)))
+                    .convertedAmount(stripped(amount.multiply(fromMid).divide(toMid, AMOUNT_SCALE, RoundingMode.HALF_EVEN)))
+                    .build();
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, tables, CACHE_NAME);
+    }
+
+    private CompletableFuture<TableRates> getTable(LocalDate date) {
+        Optional<TableRates> local = snapshot.findTable(RateTable.A, date)
+                .or(() -> Optional.ofNullable(tables.getIfPresent(date)));
+        if (local.isPresent()) return CompletableFuture.completedFuture(local.get());
+        return client.getTables(client.tablesUrl(RateTable.A, new DateRange(date, date)))
+                .thenApply(responses -> {
+                    TableRates table = responses.stream().findFirst()
+                            .map(TableRates::of)
+                            .orElseThrow(() -> notFound("No table published on " + date));
+                    tables.put(date, table);
+                    return table;
+                });
+    }
+
+    /**
+     * Returns the currency of the code, or nothing for the złoty.
+     */
+    static Optional<Currency> parseCode(String code) {
+        if (PLN.equalsIgnoreCase(code)) return Optional.empty();
+        Currency currency = ExchangeRateService.parseCurrencyCode(code);
+        if (!currency.isQuotedIn(RateTable.A))
+            throw new IllegalArgumentException("Currency not quoted in table A: " + currency);
+        return Optional.of(currency);
+    }
+
+    private static long midOf(TableRates table, Optional<Currency> currency, String code) {
+        long mid = currency.map(table::mid).orElse(PLN_MID);
+        if (mid == RateSeries.ABSENT || mid == 0)
+            throw notFound("No average rate of " + code + " in table of " + table.effectiveDate());
+        return mid;
+    }
+
+    private static BigDecimal stripped(BigDecimal value) {
+        BigDecimal stripped = value.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+
+    private static HttpClientErrorException notFound(String message) {
+        return HttpClientErrorException.create(message, HttpStatus.NOT_FOUND,
+                HttpStatus.NOT_FOUND.getReasonPhrase(), null, null, null);
+    }
+}
@@ -0,0 +1,14 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.http_cache;
+
+import org.springframework.http.CacheControl;
+
+/**
+ * @param cacheControl how long and by whom the response may be cached
+ * @param version      identifies the current version of the response; part of its ETag, which is left out if
+ *                     {@code null}
+ */
+public record CachePolicy(
+        CacheControl cacheControl,
+        String version
+) {
+}
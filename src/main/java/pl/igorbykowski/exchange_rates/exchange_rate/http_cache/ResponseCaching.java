@@ -0,0 +1,182 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.http_cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.AsOf;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Adds HTTP caching headers to GET responses and answers conditional requests with 304 Not Modified.
+ * <p>
+ * Responses about days whose table is already published never change, so they are cached for a year, and a
+ * matching {@code If-None-Match} is answered before the response is computed, without touching NBP or the snapshot.
+ * Responses about the latest quotes are computed first: their ETag names the effective date of the latest quote
+ * served from each table, and they expire at the next publication only if that quote comes from the latest scheduled
+ * one. While NBP publishes late they have to be revalidated on every use, and the new ETag of the delayed table
+ * replaces the old one as soon as it is served. ETags also name the format asked for in the {@code Accept} header,
+ * since JSON, CBOR and Smile bodies of the same response differ, and responses vary by that header. ETags are weak,
+ * because the body may be sent gzipped or not, and Tomcat does not compress responses with strong ones.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCaching {
+
+    static final Duration IMMUTABLE_MAX_AGE = Duration.ofDays(365);
+    static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    /**
+     * Part of every ETag; change it whenever the representation of responses changes, so that validators issued
+     * for the previous one stop matching.
+     */
+    static final String REPRESENTATION_VERSION = "2";
+
+    private final PublicationSchedule schedule;
+
+    public CachePolicy permanent() {
+        return new CachePolicy(CacheControl.maxAge(IMMUTABLE_MAX_AGE).cachePublic().immutable(), "published");
+    }
+
+    /**
+     * Policy of responses computed from the latest quotes of the tables, with the effective date of the latest quote
+     * served from each. They are valid until the first table is published again, provided every date is that of its
+     * table's latest scheduled publication; otherwise, or when a table had no quotes, they must be revalidated.
+     */
+    public CachePolicy asOf(Map<RateTable, LocalDate> effectiveDates, RateTable... tables) {
+        Duration maxAge = Arrays.stream(tables)
+                .map(table -> isLatest(table, effectiveDates.get(table)) ? schedule.timeToNextPublication(table) : Duration.ZERO)
+                .min(Duration::compareTo)
+                .filter(duration -> !duration.isNegative())
+                .orElse(Duration.ZERO);
+        String version = Arrays.stream(tables)
+                .map(table -> table.name() + Objects.toString(effectiveDates.get(table), ""))
+                .collect(Collectors.joining("-"));
+        return new CachePolicy(CacheControl.maxAge(maxAge).cachePublic(), version);
+    }
+
+    /**
+     * Policy of responses streamed with the quotes of a table up to the date, whose headers are sent before the
+     * quotes are known: permanent once a later table is published, not stored otherwise.
+     */
+    public CachePolicy upTo(RateTable table, LocalDate date) {
+        return date.isBefore(schedule.latestPublicationDay(table)) ? permanent() : new CachePolicy(CacheControl.noStore(), null);
+    }
+
+    /**
+     * Answers a response about the table of the date: permanently once that table is published, like
+     * {@link #asOf} with the effective date of the body otherwise.
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> respondUpTo(WebRequest request, RateTable table, LocalDate date,
+                                                                Supplier<CompletableFuture<T>> body,
+                                                                Function<T, LocalDate> effectiveDate) {
+        if (!date.isAfter(schedule.latestPublicationDay(table))) return respond(request, permanent(), body);
+        return respond(request, body.get().thenApply(value -> new AsOf<>(value, Map.of(table, effectiveDate.apply(value)))), table);
+    }
+
+    /**
+     * Answers 304 Not Modified if the request already holds the current version, otherwise computes the body.
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> respond(WebRequest request, CachePolicy policy,
+                                                            Supplier<CompletableFuture<T>> body) {
+        Optional<ResponseEntity<T>> notModified = notModified(request, policy);
+        if (notModified.isPresent()) return CompletableFuture.completedFuture(notModified.get());
+        return body.get().thenApply(value -> ok(request, policy).body(value));
+    }
+
+    /**
+     * Answers 304 Not Modified if the request already holds the version of the computed body, see {@link #asOf}.
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> respond(WebRequest request, CompletableFuture<AsOf<T>> body,
+                                                            RateTable... tables) {
+        return body.thenApply(computed -> {
+            CachePolicy policy = asOf(computed.effectiveDates(), tables);
+            return this.<T>notModified(request, policy, true)
+                    .orElseGet(() -> ok(request, policy).body(computed.value()));
+        });
+    }
+
+    /**
+     * Answers 304 Not Modified, before the response is computed, if the request already holds the current version.
+     */
+    public <T> Optional<ResponseEntity<T>> notModified(WebRequest request, CachePolicy policy) {
+        return notModified(request, policy, false);
+    }
+
+    public ResponseEntity.BodyBuilder ok(WebRequest request, CachePolicy policy) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .cacheControl(policy.cacheControl())
+                .varyBy(HttpHeaders.ACCEPT);
+        return policy.version() == null ? builder : builder.eTag(eTag(request, policy));
+    }
+
+    private <T> Optional<ResponseEntity<T>> notModified(WebRequest request, CachePolicy policy, boolean computed) {
+        if (policy.version() == null) return Optional.empty();
+        String eTag = eTag(request, policy);
+        if (!matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag, computed)) return Optional.empty();
+        return Optional.of(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(policy.cacheControl())
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .build());
+    }
+
+    private boolean isLatest(RateTable table, LocalDate effectiveDate) {
+        return effectiveDate != null && !effectiveDate.isBefore(schedule.latestPublicationDay(table));
+    }
+
+    static String eTag(WebRequest request, CachePolicy policy) {
+        String format = format(request.getHeader(HttpHeaders.ACCEPT));
+        return "W/\"" + REPRESENTATION_VERSION + "-" + format + "-" + policy.version() + "\"";
+    }
+
+    /**
+     * Names the format the response is written in: the first of JSON, CBOR and Smile listed in the header.
+     */
+    private static String format(String accept) {
+        if (accept == null) return "json";
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) return "cbor";
+                if (type.equalsTypeAndSubtype(SMILE)) return "smile";
+                if (type.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) return "json";
+            }
+        } catch (InvalidMediaTypeException e) {
+            return "json";
+        }
+        return "json";
+    }
+
+    /**
+     * Weak comparison, as RFC 9110 prescribes for {@code If-None-Match}. A {@code *} only matches a representation
+     * that exists, which is known once the response is computed.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag, boolean computed) {
+        if (ifNoneMatch == null) return false;
+        eTag = eTag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") && computed) return true;
+            if (trimmed.startsWith("W/")) trimmed = trimmed.substring(2);
+            if (trimmed.equals(eTag)) return true;
+        }
+        return false;
+    }
+}
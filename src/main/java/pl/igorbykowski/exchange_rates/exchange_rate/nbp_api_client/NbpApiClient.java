@@ -0,0 +1,209 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking client of the NBP exchange rates API.
+ * <p>
+ * Concurrent requests for the same URL share a single call to NBP and its result. Calls are guarded by
+ * {@link NbpResilience}.
+ * <p>
+ * Error responses are reported as {@link HttpClientErrorException} or {@link HttpServerErrorException} and I/O
+ * failures as {@link ResourceAccessException}, the same way {@code RestTemplate} reports them.
+ * <p>
+ * Every call to NBP is observed as {@value #REQUEST_OBSERVATION}, tagged with the queried table, currency, kind of
+ * query and response status, and the parsing of its body as {@value #PARSE_OBSERVATION}.
+ */
+@Component
+@RequiredArgsConstructor
+public class NbpApiClient implements MeterBinder {
+    static final String REQUEST_OBSERVATION = "nbp.api.requests";
+    static final String PARSE_OBSERVATION = "nbp.api.response.parse";
+    private static final String IO_ERROR_STATUS = "IO_ERROR";
+    private static final String NONE = "none";
+
+    private static final String EXCHANGE_RATE_API_PATH = "/rates/%s/%s/%s";
+    private static final String EXCHANGE_RATES_RANGE_API_PATH = "/rates/%s/%s/%s/%s";
+    private static final String LAST_EXCHANGE_RATES_API_PATH = "/rates/%s/%s/last/%s";
+    private static final String TABLES_RANGE_API_PATH = "/tables/%s/%s/%s";
+
+    private final HttpClient nbpHttpClient;
+    private final ObjectMapper objectMapper;
+    private final NbpApiClientProperties properties;
+    private final NbpResilience resilience;
+    private final ObservationRegistry observationRegistry;
+    private final SingleFlight<String, ExchangeRateNBPResponse> exchangeRatesInFlight = new SingleFlight<>();
+    private final SingleFlight<String, List<ExchangeRateTableNBPResponse>> tablesInFlight = new SingleFlight<>();
+
+    public String exchangeRateUrl(RateTable table, Currency currency, LocalDate date) {
+        return properties.baseUrl() + String.format(EXCHANGE_RATE_API_PATH, table, currency, date);
+    }
+
+    public String exchangeRatesUrl(RateTable table, Currency currency, DateRange range) {
+        return properties.baseUrl() + String.format(EXCHANGE_RATES_RANGE_API_PATH, table, currency, range.from(), range.to());
+    }
+
+    public String lastExchangeRatesUrl(RateTable table, Currency currency, int quotations) {
+        return properties.baseUrl() + String.format(LAST_EXCHANGE_RATES_API_PATH, table, currency, quotations);
+    }
+
+    public String tablesUrl(RateTable table, DateRange range) {
+        return properties.baseUrl() + String.format(TABLES_RANGE_API_PATH, table, range.from(), range.to());
+    }
+
+    public CompletableFuture<ExchangeRateNBPResponse> getExchangeRates(String url) {
+        return exchangeRatesInFlight.execute(url, () -> resilience.call(() -> get(url, new TypeReference<ExchangeRateNBPResponse>() {
+        })).thenApply(response -> Optional.ofNullable(response)
+                .orElseThrow(() -> new NoSuchElementException("Cannot get exchange rate response from received data."))));
+    }
+
+    public CompletableFuture<List<ExchangeRateTableNBPResponse>> getTables(String url) {
+        return tablesInFlight.execute(url, () -> resilience.call(() -> get(url, new TypeReference<List<ExchangeRateTableNBPResponse>>() {
+        })).thenApply(tables -> Optional.ofNullable(tables).orElse(List.of())));
+    }
+
+    /**
+     * Returns whether the failure means NBP could not answer, as opposed to answering with an error: the call did
+     * not reach NBP, was rejected, or NBP responded with a server error.
+     */
+    public static boolean isUnavailable(Throwable failure) {
+        Throwable cause = unwrap(failure);
+        return cause instanceof ResourceAccessException || cause instanceof HttpServerErrorException;
+    }
+
+    /**
+     * Publishes how many callers currently share, or have shared, a call already in flight instead of starting
+     * their own.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("nbp.api.requests.shared", this,
+                        client -> client.exchangeRatesInFlight.sharedCount() + client.tablesInFlight.sharedCount())
+                .description("Requests answered by a call to NBP started for another caller")
+                .register(registry);
+        Gauge.builder("nbp.api.requests.in.flight", this,
+                        client -> client.exchangeRatesInFlight.inFlightCount() + client.tablesInFlight.inFlightCount())
+                .description("Distinct calls to NBP waiting for a response")
+                .register(registry);
+    }
+
+    private <T> CompletableFuture<T> get(String url, TypeReference<T> type) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(properties.readTimeout())
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .GET()
+                .build();
+        RequestTags tags = RequestTags.of(relativePath(url));
+        Observation observation = Observation.createNotStarted(REQUEST_OBSERVATION, observationRegistry)
+                .lowCardinalityKeyValues(tags.toKeyValues())
+                .highCardinalityKeyValue("uri", url)
+                .start();
+        return nbpHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = unwrap(failure);
+                        observation.lowCardinalityKeyValue("status", cause instanceof IOException ? IO_ERROR_STATUS : NONE);
+                        observation.error(cause);
+                        observation.stop();
+                        throw new CompletionException(toRestClientException(url, cause));
+                    }
+                    observation.lowCardinalityKeyValue("status", String.valueOf(response.statusCode()));
+                    observation.stop();
+                    return readBody(url, tags, response, type);
+                });
+    }
+
+    private <T> T readBody(String url, RequestTags tags, HttpResponse<byte[]> response, TypeReference<T> type) {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (status.isError()) throw toErrorStatusException(status, response);
+        try {
+            return Observation.createNotStarted(PARSE_OBSERVATION, observationRegistry)
+                    .lowCardinalityKeyValue("query", tags.query())
+                    .observeChecked(() -> objectMapper.readerFor(type)
+                            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                            .<T>readValue(response.body()));
+        } catch (IOException e) {
+            throw new RestClientException("Cannot read NBP response from " + url, e);
+        }
+    }
+
+    private String relativePath(String url) {
+        return url.startsWith(properties.baseUrl()) ? url.substring(properties.baseUrl().length()) : URI.create(url).getPath();
+    }
+
+    private static RestClientException toErrorStatusException(HttpStatusCode status, HttpResponse<byte[]> response) {
+        String statusText = Optional.ofNullable(HttpStatus.resolve(status.value()))
+                .map(HttpStatus::getReasonPhrase)
+                .orElse("");
+        return status.is4xxClientError()
+                ? HttpClientErrorException.create(status, statusText, null, response.body(), StandardCharsets.UTF_8)
+                : HttpServerErrorException.create(status, statusText, null, response.body(), StandardCharsets.UTF_8);
+    }
+
+    private static Throwable toRestClientException(String url, Throwable cause) {
+        if (cause instanceof IOException ioException) {
+            return new ResourceAccessException("I/O error on GET request for \"" + url + "\": " + ioException.getMessage(), ioException);
+        }
+        return cause;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    /**
+     * Low-cardinality tags of a request, read back from the path it was built from: the kind of query
+     * ({@code rate}, {@code range}, {@code last} or {@code tables}), the table and the currency.
+     */
+    record RequestTags(String query, String table, String currency) {
+
+        static RequestTags of(String path) {
+            String[] segments = path.split("/");
+            if (segments.length == 5 && segments[1].equals("tables")) return new RequestTags("tables", segments[2], NONE);
+            if (segments.length < 5 || !segments[1].equals("rates")) return new RequestTags(NONE, NONE, NONE);
+            String query = segments.length == 5 ? "rate" : segments[4].equals("last") ? "last" : "range";
+            return new RequestTags(query, segments[2], segments[3]);
+        }
+
+        KeyValues toKeyValues() {
+            return KeyValues.of("query", query, "table", table, "currency", currency);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * @param baseUrl         root of the NBP exchange rates API
+ * @param connectTimeout  maximum time to establish a connection to NBP
+ * @param readTimeout     maximum time to wait for a complete NBP response
+ * @param httpVersion     preferred HTTP version; HTTP/2 falls back to HTTP/1.1 if NBP does not support it
+ * @param executorThreads number of threads completing NBP responses
+ */
+@ConfigurationProperties("nbp.api")
+public record NbpApiClientProperties(
+        @DefaultValue("http://api.nbp.pl/api/exchangerates") String baseUrl,
+        @DefaultValue("2s") Duration connectTimeout,
+        @DefaultValue("5s") Duration readTimeout,
+        @DefaultValue("HTTP_1_1") HttpClient.Version httpVersion,
+        @DefaultValue("8") int executorThreads
+) {
+}
@@ -0,0 +1,115 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Guards calls to NBP with a circuit breaker, a bulkhead and retries.
+ * <p>
+ * Failed calls are retried after an exponentially growing, randomized delay. Once too many recent calls failed,
+ * the circuit opens and calls are rejected without reaching NBP until a few trial calls succeed again. Calls above
+ * the concurrency limit are rejected immediately instead of queueing behind a slow NBP. Only responses that mean
+ * NBP could not answer count as failures, see {@link NbpApiClient#isUnavailable(Throwable)}; rejected calls fail
+ * with {@link ResourceAccessException} as if NBP could not be reached.
+ */
+@Component
+public class NbpResilience implements MeterBinder, DisposableBean {
+    private static final String NAME = "nbp";
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final RetryRegistry retries;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry retry;
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "nbp-api-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NbpResilience(NbpResilienceProperties properties) {
+        this.circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.failureRateThreshold())
+                .slidingWindowSize(properties.slidingWindowSize())
+                .minimumNumberOfCalls(properties.minimumNumberOfCalls())
+                .waitDurationInOpenState(properties.openStateDuration())
+                .recordException(NbpApiClient::isUnavailable)
+                .build());
+        this.bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.maxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        this.retries = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(properties.maxAttempts())
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(properties.initialBackoff(),
+                        properties.backoffMultiplier(), properties.backoffJitter()))
+                .retryOnException(NbpApiClient::isUnavailable)
+                .build());
+        this.circuitBreaker = circuitBreakers.circuitBreaker(NAME);
+        this.bulkhead = bulkheads.bulkhead(NAME);
+        this.retry = retries.retry(NAME);
+    }
+
+    <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        return retry.executeCompletionStage(retryScheduler,
+                        () -> circuitBreaker.executeCompletionStage(() -> bulkhead.executeCompletionStage(call::get)))
+                .toCompletableFuture()
+                .handle((value, failure) -> {
+                    if (failure != null) throw new CompletionException(toRejectionException(unwrap(failure)));
+                    return value;
+                });
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(registry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(registry);
+        TaggedRetryMetrics.ofRetryRegistry(retries).bindTo(registry);
+    }
+
+    @Override
+    public void destroy() {
+        retryScheduler.shutdownNow();
+    }
+
+    private static Throwable toRejectionException(Throwable failure) {
+        if (failure instanceof CallNotPermittedException || failure instanceof BulkheadFullException) {
+            return new ResourceAccessException("NBP API call rejected: " + failure.getMessage());
+        }
+        return failure;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+}
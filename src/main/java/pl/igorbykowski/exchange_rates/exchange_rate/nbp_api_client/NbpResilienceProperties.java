@@ -0,0 +1,31 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maxAttempts           maximum number of calls for one request, including the first one; 1 disables retries
+ * @param initialBackoff        mean delay before the first retry
+ * @param backoffMultiplier     factor applied to the delay before every next retry
+ * @param backoffJitter         fraction of the delay randomly added or subtracted, between 0 and 1
+ * @param failureRateThreshold  percentage of failed calls that opens the circuit
+ * @param slidingWindowSize     number of most recent calls the failure rate is computed from
+ * @param minimumNumberOfCalls  number of calls needed before the failure rate is computed at all
+ * @param openStateDuration     time during which calls are rejected before a few trial calls are let through
+ * @param maxConcurrentCalls    maximum number of calls to NBP in flight; further calls are rejected immediately
+ */
+@ConfigurationProperties("nbp.resilience")
+public record NbpResilienceProperties(
+        @DefaultValue("3") int maxAttempts,
+        @DefaultValue("200ms") Duration initialBackoff,
+        @DefaultValue("2") double backoffMultiplier,
+        @DefaultValue("0.5") double backoffJitter,
+        @DefaultValue("50") float failureRateThreshold,
+        @DefaultValue("20") int slidingWindowSize,
+        @DefaultValue("10") int minimumNumberOfCalls,
+        @DefaultValue("30s") Duration openStateDuration,
+        @DefaultValue("32") int maxConcurrentCalls
+) {
+}
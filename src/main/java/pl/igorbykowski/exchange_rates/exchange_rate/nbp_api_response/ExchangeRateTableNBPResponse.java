@@ -0,0 +1,12 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record ExchangeRateTableNBPResponse(
+        String table,
+        String no,
+        LocalDate effectiveDate,
+        List<TableRateNBPResponse> rates
+) {
+}
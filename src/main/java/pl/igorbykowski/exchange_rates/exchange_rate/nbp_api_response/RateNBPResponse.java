@@ -3,6 +3,10 @@ package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+/**
+ * One quote of a currency. Rates are normalized with {@link #normalize(BigDecimal)}, so that a quote is
+ * serialized the same way whether it comes from NBP, the database, the archive or the in-memory series.
+ */
 public record RateNBPResponse(
         String no,
         LocalDate effectiveDate,
@@ -10,4 +14,25 @@ public record RateNBPResponse(
         BigDecimal bid,
         BigDecimal ask
 ) {
+
+    /**
+     * Number of decimal places NBP publishes rates with; only rates of a few table B currencies have more.
+     */
+    public static final int PUBLISHED_SCALE = 4;
+
+    public RateNBPResponse {
+        mid = normalize(mid);
+        bid = normalize(bid);
+        ask = normalize(ask);
+    }
+
+    /**
+     * Returns the rate with {@value #PUBLISHED_SCALE} decimal places, or with more if they are not trailing zeros.
+     */
+    public static BigDecimal normalize(BigDecimal rate) {
+        if (rate == null || rate.scale() == PUBLISHED_SCALE) return rate;
+        if (rate.scale() < PUBLISHED_SCALE) return rate.setScale(PUBLISHED_SCALE);
+        BigDecimal stripped = rate.stripTrailingZeros();
+        return stripped.scale() < PUBLISHED_SCALE ? stripped.setScale(PUBLISHED_SCALE) : stripped;
+    }
 }
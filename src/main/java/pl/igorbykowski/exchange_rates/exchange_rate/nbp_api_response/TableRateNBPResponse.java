@@ -0,0 +1,18 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response;
+
+import java.math.BigDecimal;
+
+public record TableRateNBPResponse(
+        String currency,
+        String code,
+        BigDecimal mid,
+        BigDecimal bid,
+        BigDecimal ask
+) {
+
+    public TableRateNBPResponse {
+        mid = RateNBPResponse.normalize(mid);
+        bid = RateNBPResponse.normalize(bid);
+        ask = RateNBPResponse.normalize(ask);
+    }
+}
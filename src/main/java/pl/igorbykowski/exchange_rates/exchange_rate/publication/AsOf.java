@@ -0,0 +1,16 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.publication;
+
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * A value computed from NBP tables, with the effective date of the latest quote it was computed from in each table.
+ * Tables in which no quote was found are left out.
+ */
+public record AsOf<T>(
+        T value,
+        Map<RateTable, LocalDate> effectiveDates
+) {
+}
@@ -0,0 +1,15 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.publication;
+
+/**
+ * How the date of an average exchange rate query is matched to an NBP table.
+ */
+public enum DateResolution {
+    /**
+     * Only the table published on the date itself; dates without a table are not found.
+     */
+    EXACT,
+    /**
+     * The latest table published on or before the date, e.g. Friday's table for a Sunday.
+     */
+    PREVIOUS
+}
@@ -0,0 +1,121 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.publication;
+
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.MonthDay;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells on which days NBP publishes its tables: business days in Poland, i.e. every day except weekends, statutory
+ * public holidays and the {@link PublicationProperties#closedDays() configured} closures. Table B is published
+ * once a week, on Wednesday, or on the last business day before a Wednesday without publication.
+ */
+@Component
+public class PublicationCalendar {
+
+    /**
+     * Date of the oldest table in the NBP archive.
+     */
+    public static final LocalDate FIRST_TABLE_DATE = LocalDate.of(2002, 1, 2);
+
+    private static final Set<MonthDay> FIXED_HOLIDAYS = Set.of(
+            MonthDay.of(Month.JANUARY, 1), MonthDay.of(Month.MAY, 1), MonthDay.of(Month.MAY, 3),
+            MonthDay.of(Month.AUGUST, 15), MonthDay.of(Month.NOVEMBER, 1), MonthDay.of(Month.NOVEMBER, 11),
+            MonthDay.of(Month.DECEMBER, 25), MonthDay.of(Month.DECEMBER, 26));
+    private static final MonthDay EPIPHANY = MonthDay.of(Month.JANUARY, 6);
+    private static final int EPIPHANY_OFF_SINCE = 2011;
+    private static final MonthDay CHRISTMAS_EVE = MonthDay.of(Month.DECEMBER, 24);
+    private static final int CHRISTMAS_EVE_OFF_SINCE = 2025;
+    private static final Set<LocalDate> ONE_OFF_HOLIDAYS = Set.of(
+            LocalDate.of(2018, Month.NOVEMBER, 12));
+
+    private final Set<LocalDate> closedDays;
+    private final Map<Integer, Set<LocalDate>> movableHolidays = new ConcurrentHashMap<>();
+
+    public PublicationCalendar(PublicationProperties properties) {
+        this.closedDays = properties.closedDays() == null ? Set.of() : Set.copyOf(properties.closedDays());
+    }
+
+    public boolean isPublicationDay(LocalDate date) {
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY && !isHoliday(date);
+    }
+
+    public LocalDate nextPublicationDay(LocalDate date) {
+        LocalDate next = date.plusDays(1);
+        while (!isPublicationDay(next)) next = next.plusDays(1);
+        return next;
+    }
+
+    public LocalDate previousPublicationDay(LocalDate date) {
+        LocalDate previous = date.minusDays(1);
+        while (!isPublicationDay(previous)) previous = previous.minusDays(1);
+        return previous;
+    }
+
+    /**
+     * Returns the date itself if NBP publishes tables on it, otherwise the nearest earlier day on which it does.
+     */
+    public LocalDate publicationDayOnOrBefore(LocalDate date) {
+        return isPublicationDay(date) ? date : previousPublicationDay(date);
+    }
+
+    public boolean isPublicationDay(RateTable table, LocalDate date) {
+        if (!isPublicationDay(date)) return false;
+        return table != RateTable.B || date.equals(publicationDayOnOrBefore(date.with(DayOfWeek.WEDNESDAY)));
+    }
+
+    public LocalDate nextPublicationDay(RateTable table, LocalDate date) {
+        LocalDate next = nextPublicationDay(date);
+        while (!isPublicationDay(table, next)) next = nextPublicationDay(next);
+        return next;
+    }
+
+    public LocalDate previousPublicationDay(RateTable table, LocalDate date) {
+        LocalDate previous = previousPublicationDay(date);
+        while (!isPublicationDay(table, previous)) previous = previousPublicationDay(previous);
+        return previous;
+    }
+
+    /**
+     * Returns the date itself if NBP publishes the table on it, otherwise the nearest earlier day on which it does.
+     */
+    public LocalDate publicationDayOnOrBefore(RateTable table, LocalDate date) {
+        return isPublicationDay(table, date) ? date : previousPublicationDay(table, date);
+    }
+
+    private boolean isHoliday(LocalDate date) {
+        MonthDay monthDay = MonthDay.from(date);
+        return FIXED_HOLIDAYS.contains(monthDay)
+                || monthDay.equals(EPIPHANY) && date.getYear() >= EPIPHANY_OFF_SINCE
+                || monthDay.equals(CHRISTMAS_EVE) && date.getYear() >= CHRISTMAS_EVE_OFF_SINCE
+                || ONE_OFF_HOLIDAYS.contains(date)
+                || closedDays.contains(date)
+                || movableHolidays.computeIfAbsent(date.getYear(), PublicationCalendar::movableHolidays).contains(date);
+    }
+
+    /**
+     * Easter Monday and Corpus Christi; the other holidays depending on Easter fall on Sundays.
+     */
+    private static Set<LocalDate> movableHolidays(int year) {
+        LocalDate easter = easterSunday(year);
+        return Set.of(easter.plusDays(1), easter.plusDays(60));
+    }
+
+    /**
+     * Anonymous Gregorian algorithm.
+     */
+    private static LocalDate easterSunday(int year) {
+        int a = year % 19, b = year / 100, c = year % 100, d = b / 4, e = b % 4;
+        int f = (b + 8) / 25, g = (b - f + 1) / 3, h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4, k = c % 4, l = (32 + 2 * e + 2 * i - h - k) % 7, m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31, day = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(year, month, day);
+    }
+}
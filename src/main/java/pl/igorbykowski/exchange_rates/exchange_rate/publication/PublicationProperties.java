@@ -0,0 +1,24 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.publication;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @param zone       time zone in which NBP publishes its tables
+ * @param times      latest time of day by which each table is published
+ * @param closedDays business days on which NBP publishes no tables, in addition to weekends and public holidays
+ */
+@ConfigurationProperties("nbp.publication")
+public record PublicationProperties(
+        @DefaultValue("Europe/Warsaw") ZoneId zone,
+        Map<RateTable, LocalTime> times,
+        Set<LocalDate> closedDays
+) {
+}
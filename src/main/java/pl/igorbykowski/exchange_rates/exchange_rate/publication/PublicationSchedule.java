@@ -0,0 +1,69 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.publication;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.*;
+import java.util.Optional;
+
+/**
+ * Tells when NBP publishes the next table, so that data derived from the latest quotes can expire
+ * exactly when it may change. Days without tables are told by the {@link PublicationCalendar}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PublicationSchedule {
+
+    private final PublicationProperties properties;
+    private final PublicationCalendar calendar;
+    private final Clock clock;
+
+    public ZonedDateTime nextPublication(RateTable table) {
+        ZonedDateTime now = ZonedDateTime.now(clock.withZone(properties.zone()));
+        LocalDate day = now.toLocalDate();
+        if (!calendar.isPublicationDay(table, day) || !now.toLocalTime().isBefore(publicationTime(table))) {
+            day = calendar.nextPublicationDay(table, day);
+        }
+        return day.atTime(publicationTime(table)).atZone(properties.zone());
+    }
+
+    public LocalDate latestPublicationDay(RateTable table) {
+        ZonedDateTime now = ZonedDateTime.now(clock.withZone(properties.zone()));
+        LocalDate day = now.toLocalDate();
+        if (!calendar.isPublicationDay(table, day) || now.toLocalTime().isBefore(publicationTime(table))) {
+            day = calendar.previousPublicationDay(table, day);
+        }
+        return day;
+    }
+
+    /**
+     * Returns the day whose table answers a query for the date: the date itself or, with
+     * {@link DateResolution#PREVIOUS}, the latest day on or before it on which the table was published.
+     */
+    public LocalDate resolve(RateTable table, LocalDate date, DateResolution resolution) {
+        if (resolution != DateResolution.PREVIOUS) return date;
+        LocalDate latest = latestPublicationDay(table);
+        return date.isAfter(latest) ? latest : calendar.publicationDayOnOrBefore(table, date);
+    }
+
+    /**
+     * Tells whether NBP may have published the table on the date. Today's table counts until it is known to be
+     * missing, since NBP may publish it before the scheduled time; later days never do.
+     */
+    public boolean isPublished(RateTable table, LocalDate date) {
+        return !date.isBefore(PublicationCalendar.FIRST_TABLE_DATE)
+                && !date.isAfter(LocalDate.now(clock.withZone(properties.zone())))
+                && calendar.isPublicationDay(table, date);
+    }
+
+    public Duration timeToNextPublication(RateTable table) {
+        return Duration.between(Instant.now(clock), nextPublication(table).toInstant());
+    }
+
+    private LocalTime publicationTime(RateTable table) {
+        return Optional.ofNullable(properties.times())
+                .map(times -> times.get(table))
+                .orElseThrow(() -> new IllegalStateException("Missing publication time for table " + table));
+    }
+}
@@ -0,0 +1,105 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of requests in flight, including asynchronous ones waiting for NBP after their thread was
+ * released. Requests above the limit are rejected immediately with {@code 429 Too Many Requests} and a
+ * {@code Retry-After} header instead of queueing behind the ones in flight, which keeps the latency of admitted
+ * requests predictable under overload. Rejected requests are counted as {@value RateLimitInterceptor#REJECTED_METRIC}
+ * with the reason {@value #REASON}.
+ */
+@Component
+public class AdmissionControl implements AsyncHandlerInterceptor, MeterBinder {
+
+    static final String REASON = "overload";
+    private static final String PERMIT_ATTRIBUTE = AdmissionControl.class.getName() + ".permit";
+
+    private final int maxConcurrentRequests;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public AdmissionControl(RateLimitProperties properties) {
+        this.maxConcurrentRequests = properties.maxConcurrentRequests();
+        this.permits = new Semaphore(maxConcurrentRequests);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) return true;
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw RateLimitInterceptor.tooManyRequests("Server overloaded, try again later", TimeUnit.SECONDS.toNanos(1));
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new AtomicBoolean());
+        return true;
+    }
+
+    /**
+     * Keeps the permit until the asynchronous request completes, however it completes.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                release(request);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                @Nullable Exception ex) {
+        release(request);
+    }
+
+    public int inFlight() {
+        return maxConcurrentRequests - permits.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("http.server.requests.in_flight", this, AdmissionControl::inFlight)
+                .description("Requests admitted and not completed yet")
+                .register(registry);
+        FunctionCounter.builder(RateLimitInterceptor.REJECTED_METRIC, rejected, LongAdder::sum)
+                .description("Requests rejected before being handled")
+                .tag("reason", REASON)
+                .register(registry);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AtomicBoolean released && released.compareAndSet(false, true)) {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Charges batch requests once their body is read, before it is validated or any work is done for it; the
+ * {@link RateLimitInterceptor} can only tell their cost from the body.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "nbp.rate-limit.enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class BatchRateLimitAdvice extends RequestBodyAdviceAdapter {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return RateLimitedRequest.class.isAssignableFrom(methodParameter.getParameterType());
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && body instanceof RateLimitedRequest batch) {
+            rateLimitInterceptor.chargeBody(attributes.getRequest(), batch);
+        }
+        return body;
+    }
+}
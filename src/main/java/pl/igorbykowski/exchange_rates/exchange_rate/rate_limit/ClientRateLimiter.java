@@ -0,0 +1,89 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Token bucket of every client. A full bucket lets a client send a burst of requests worth its capacity, after
+ * which it may go on at the refill rate. Buckets of clients idle long enough to have refilled completely are
+ * forgotten, since a new bucket is just as full, and the least recently used ones beyond the configured number of
+ * clients are evicted; their sizes are published as the {@code cache.*} metrics of the {@value #CACHE_NAME} cache.
+ */
+@Component
+public class ClientRateLimiter implements MeterBinder {
+
+    static final String CACHE_NAME = "rate-limit-buckets";
+
+    private final Cache<String, TokenBucket> buckets;
+    private final Ticker ticker;
+    private final int capacity;
+    private final double tokensPerNano;
+
+    @Autowired
+    public ClientRateLimiter(RateLimitProperties properties) {
+        this(properties, Ticker.systemTicker());
+    }
+
+    ClientRateLimiter(RateLimitProperties properties, Ticker ticker) {
+        this.ticker = ticker;
+        this.capacity = properties.capacity();
+        this.tokensPerNano = properties.refillPerSecond() / Duration.ofSeconds(1).toNanos();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxClients())
+                .expireAfter(new UntilFull())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Charges the client for a request. Requests costing more than the capacity are admitted once the bucket is full
+     * and charged in whole, so that a client can still send them but then waits until their cost is refilled.
+     *
+     * @return 0 if the request is admitted, otherwise nanoseconds the client has to wait before it would be
+     */
+    public long tryAcquire(String client, int cost) {
+        long now = ticker.read();
+        long[] waitNanos = new long[1];
+        buckets.asMap().compute(client, (key, bucket) -> {
+            TokenBucket charged = bucket == null ? new TokenBucket(capacity, tokensPerNano, now) : bucket;
+            waitNanos[0] = charged.tryTake(cost, now);
+            return charged;
+        });
+        return waitNanos[0];
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, buckets, CACHE_NAME);
+    }
+
+    /**
+     * Forgets a bucket once it has refilled completely.
+     */
+    private static final class UntilFull implements Expiry<String, TokenBucket> {
+        @Override
+        public long expireAfterCreate(String client, TokenBucket bucket, long currentTime) {
+            return bucket.nanosUntilFull(currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(String client, TokenBucket bucket, long currentTime, long currentDuration) {
+            return bucket.nanosUntilFull(currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String client, TokenBucket bucket, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
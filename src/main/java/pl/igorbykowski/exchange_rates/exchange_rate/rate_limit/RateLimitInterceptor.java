@@ -0,0 +1,117 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Charges every client for its requests and rejects them with {@code 429 Too Many Requests} and a
+ * {@code Retry-After} header once the client runs out of tokens, before any work is done for them.
+ * <p>
+ * Clients are told apart by the configured API key header, or by their address if they do not send it. Behind a
+ * proxy or load balancer the address is that of the proxy unless {@code server.forward-headers-strategy} is set.
+ * <p>
+ * Requests are charged by the work they cause: one token, plus one for every
+ * {@link RateLimitProperties#quotesPerToken()} quotes asked for by last N quotes requests, or for every 93-day window
+ * of a series beyond the first. Batch requests are only let through here by clients not in debt, and charged by
+ * {@link BatchRateLimitAdvice} once their body is read, one token per query, or per currency and
+ * {@link RateLimitProperties#quotesPerToken()} quotes. Requests costing more than the capacity are admitted only from
+ * a full bucket, which then has to refill their whole cost. Rejected requests are counted as {@value #REJECTED_METRIC}
+ * with the reason {@value #REASON}.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor, MeterBinder {
+
+    static final String REJECTED_METRIC = "http.server.requests.rejected";
+    static final String REASON = "rate_limit";
+
+    private final ClientRateLimiter limiter;
+    private final RateLimitProperties properties;
+    private final LongAdder rejected = new LongAdder();
+
+    public RateLimitInterceptor(ClientRateLimiter limiter, RateLimitProperties properties) {
+        this.limiter = limiter;
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) return true;
+        charge(request, cost(request));
+        return true;
+    }
+
+    /**
+     * Charges the client for a request whose cost is known from its body.
+     */
+    void chargeBody(HttpServletRequest request, RateLimitedRequest body) {
+        charge(request, body.cost(properties.quotesPerToken()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(REJECTED_METRIC, rejected, LongAdder::sum)
+                .description("Requests rejected before being handled")
+                .tag("reason", REASON)
+                .register(registry);
+    }
+
+    private void charge(HttpServletRequest request, int cost) {
+        long waitNanos = limiter.tryAcquire(client(request), cost);
+        if (waitNanos == 0) return;
+        rejected.increment();
+        throw tooManyRequests("Rate limit exceeded, try again later", waitNanos);
+    }
+
+    String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(properties.apiKeyHeader());
+        return apiKey == null || apiKey.isBlank() ? "ip:" + request.getRemoteAddr() : "key:" + apiKey;
+    }
+
+    int cost(HttpServletRequest request) {
+        if (HttpMethod.POST.matches(request.getMethod())) return 0;
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        try {
+            String numOfQuotes = pathVariables == null ? null : pathVariables.get("numOfQuotes");
+            if (numOfQuotes != null) return 1 + Math.max(0, Integer.parseInt(numOfQuotes)) / properties.quotesPerToken();
+            String from = request.getParameter("from"), to = request.getParameter("to");
+            if (from != null && to != null) {
+                long days = ChronoUnit.DAYS.between(LocalDate.parse(from), LocalDate.parse(to));
+                return 1 + (int) Math.min(Integer.MAX_VALUE - 1, Math.max(0, days) / DateRange.NBP_MAX_DAYS);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            // rejected by the controller anyway
+        }
+        return 1;
+    }
+
+    static HttpClientErrorException tooManyRequests(String message, long waitNanos) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ceilDiv(waitNanos, TimeUnit.SECONDS.toNanos(1)))));
+        return HttpClientErrorException.create(message, HttpStatus.TOO_MANY_REQUESTS,
+                HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(), headers, null, null);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
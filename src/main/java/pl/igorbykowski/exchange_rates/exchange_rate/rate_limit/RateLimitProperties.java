@@ -0,0 +1,25 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param enabled               whether requests to the API are rate limited and admitted at all
+ * @param apiKeyHeader          request header identifying a client; clients without it are identified by address
+ * @param capacity              tokens a client may spend in a burst; costlier requests need a full bucket
+ * @param refillPerSecond       tokens given back to every client per second
+ * @param maxClients            number of clients whose buckets are remembered; idle clients are forgotten first
+ * @param quotesPerToken        number of quotes asked for by a last N quotes request that cost one more token
+ * @param maxConcurrentRequests maximum number of requests in flight; further requests are rejected immediately
+ */
+@ConfigurationProperties("nbp.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-API-Key") String apiKeyHeader,
+        @DefaultValue("60") int capacity,
+        @DefaultValue("10") double refillPerSecond,
+        @DefaultValue("100000") long maxClients,
+        @DefaultValue("32") int quotesPerToken,
+        @DefaultValue("500") int maxConcurrentRequests
+) {
+}
@@ -0,0 +1,15 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+/**
+ * Request body of a request whose cost is only known once the body is read, such as a batch.
+ */
+public interface RateLimitedRequest {
+
+    /**
+     * Returns the tokens the request costs, bounded by its own validation limits so that an invalid body is not
+     * charged more than the largest valid one.
+     *
+     * @param quotesPerToken number of quotes asked for that cost one more token
+     */
+    int cost(int quotesPerToken);
+}
@@ -0,0 +1,50 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+/**
+ * Tokens of one client, refilled continuously up to the capacity. The bucket is refilled lazily, when tokens are
+ * taken, from the time elapsed since the previous refill. Tokens go below zero when a request costs more than the
+ * capacity.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double capacity, double tokensPerNano, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerNano;
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes the tokens if the bucket holds enough of them. A cost above the capacity is taken from a full bucket,
+     * leaving it in debt until the rest is refilled.
+     *
+     * @return 0 if the tokens were taken, otherwise nanoseconds until the bucket holds enough of them
+     */
+    synchronized long tryTake(double cost, long now) {
+        refill(now);
+        double required = Math.min(cost, capacity);
+        if (tokens >= required) {
+            tokens -= cost;
+            return 0;
+        }
+        return (long) Math.ceil((required - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Returns the nanoseconds until the bucket is full again, and a new bucket would be just the same.
+     */
+    synchronized long nanosUntilFull(long now) {
+        refill(now);
+        return (long) Math.ceil((capacity - tokens) / tokensPerNano);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
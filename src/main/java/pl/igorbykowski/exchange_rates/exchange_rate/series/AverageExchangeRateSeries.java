@@ -0,0 +1,53 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.series;
+
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Average exchange rates of one currency over a date range, fetched window by window while being consumed.
+ * <p>
+ * Only a bounded number of windows is requested ahead of the one being consumed, so a series spanning years is
+ * never held in memory as a whole.
+ */
+public final class AverageExchangeRateSeries {
+
+    private final List<DateRange> windows;
+    private final Function<DateRange, CompletableFuture<List<AverageExchangeRateResponse>>> loader;
+
+    public AverageExchangeRateSeries(List<DateRange> windows,
+                                     Function<DateRange, CompletableFuture<List<AverageExchangeRateResponse>>> loader) {
+        this.windows = List.copyOf(windows);
+        this.loader = loader;
+    }
+
+    public List<DateRange> windows() {
+        return windows;
+    }
+
+    /**
+     * Passes the rates of every window to the consumer in date order, blocking until each window is loaded.
+     * Up to {@code maxConcurrentWindows} windows are loaded at the same time.
+     */
+    public void forEachWindow(int maxConcurrentWindows, WindowConsumer consumer) throws IOException {
+        Deque<CompletableFuture<List<AverageExchangeRateResponse>>> inFlight = new ArrayDeque<>();
+        Iterator<DateRange> pending = windows.iterator();
+        while (pending.hasNext() || !inFlight.isEmpty()) {
+            while (pending.hasNext() && inFlight.size() < Math.max(1, maxConcurrentWindows))
+                inFlight.add(loader.apply(pending.next()));
+            consumer.accept(inFlight.remove().join());
+        }
+    }
+
+    @FunctionalInterface
+    public interface WindowConsumer {
+        void accept(List<AverageExchangeRateResponse> rates) throws IOException;
+    }
+}
@@ -0,0 +1,66 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.series;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.exchange_rate.ExchangeRateService;
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.http_cache.CachePolicy;
+import pl.igorbykowski.exchange_rates.exchange_rate.http_cache.ResponseCaching;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Streams a series as JSON lines, flushing after every window. Once the first window has been written the
+ * status can no longer change, so a failure of a later window ends the response early. Series of published tables
+ * answer conditional requests before any window is fetched; series reaching the latest publication are not stored,
+ * because their headers are sent before it is known whether NBP has published it yet.
+ */
+@RestController
+@RequestMapping("/api/v1/exchange-rates")
+@RequiredArgsConstructor
+public class ExchangeRateSeriesController {
+
+    private final ExchangeRateService service;
+    private final ResponseCaching caching;
+    private final SeriesProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping(value = "/series/{currencyCode}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAverageExchangeRateSeries(@PathVariable("currencyCode") String currencyCode,
+                                                                              @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                                                              @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                                                              WebRequest request) {
+        Currency currency = ExchangeRateService.parseCurrencyCode(currencyCode);
+        CachePolicy policy = caching.upTo(currency.getMidTable(), to);
+        Optional<ResponseEntity<StreamingResponseBody>> notModified = caching.notModified(request, policy);
+        if (notModified.isPresent()) return notModified.get();
+        AverageExchangeRateSeries series = service.getAverageExchangeRateSeries(currencyCode, new DateRange(from, to));
+        ObjectWriter writer = objectMapper.writerFor(AverageExchangeRateResponse.class);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            series.forEachWindow(properties.concurrentWindows(), rates -> {
+                for (AverageExchangeRateResponse rate : rates) {
+                    out.write(writer.writeValueAsBytes(rate));
+                    out.write('\n');
+                }
+                out.flush();
+            });
+            out.flush();
+        };
+        return caching.ok(request, policy)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
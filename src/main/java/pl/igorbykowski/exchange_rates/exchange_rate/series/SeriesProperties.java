@@ -0,0 +1,13 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.series;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param concurrentWindows number of 93-day windows of one series fetched from NBP at the same time
+ */
+@ConfigurationProperties("nbp.series")
+public record SeriesProperties(
+        @DefaultValue("4") int concurrentWindows
+) {
+}
@@ -0,0 +1,10 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DatedValue(
+        LocalDate date,
+        BigDecimal value
+) {
+}
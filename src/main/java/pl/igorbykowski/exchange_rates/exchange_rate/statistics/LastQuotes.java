@@ -0,0 +1,104 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries.ABSENT;
+
+/**
+ * Minimum, maximum and largest spread of the last N quotes of a series, for every N up to {@value #MAX_COUNT}, so
+ * that each of them is an array read.
+ * <p>
+ * The windows are filled in one backward pass from the latest quote: every earlier quote extends the previous
+ * window by one, so each extreme takes a single comparison per length. Like {@link RateStatistics}, the earliest
+ * quote wins on equal values.
+ */
+public final class LastQuotes {
+
+    /**
+     * Largest number of last quotes NBP returns.
+     */
+    public static final int MAX_COUNT = 255;
+
+    private final RateSeries series;
+    private final int[] minIndex;
+    private final int[] maxIndex;
+    private final int[] maxSpreadIndex;
+
+    private LastQuotes(RateSeries series) {
+        this.series = series;
+        int size = series.size();
+        this.minIndex = new int[size];
+        this.maxIndex = new int[size];
+        this.maxSpreadIndex = new int[size];
+        int min = -1, max = -1, maxSpread = -1;
+        for (int count = 1; count <= size; count++) {
+            int index = size - count;
+            long mid = series.mid(index);
+            if (mid != ABSENT) {
+                if (min < 0 || mid <= series.mid(min)) min = index;
+                if (max < 0 || mid >= series.mid(max)) max = index;
+            }
+            if (spread(index) != ABSENT && (maxSpread < 0 || spread(index) >= spread(maxSpread))) maxSpread = index;
+            minIndex[count - 1] = min;
+            maxIndex[count - 1] = max;
+            maxSpreadIndex[count - 1] = maxSpread;
+        }
+    }
+
+    /**
+     * Covers the last {@value #MAX_COUNT} quotes of the series, or all of them if it is shorter.
+     */
+    public static LastQuotes of(RateSeries series) {
+        return new LastQuotes(series.last(MAX_COUNT));
+    }
+
+    /**
+     * Number of last quotes covered.
+     */
+    public int size() {
+        return series.size();
+    }
+
+    /**
+     * Returns the effective date of the latest quote, or nothing if no quote is covered.
+     */
+    public Optional<LocalDate> latestDate() {
+        return series.latestDate();
+    }
+
+    public Optional<DatedValue> min(int count) {
+        int index = window(minIndex, count);
+        if (index < 0) return Optional.empty();
+        return Optional.of(new DatedValue(series.date(index), RateSeries.toDecimal(series.mid(index))));
+    }
+
+    public Optional<DatedValue> max(int count) {
+        int index = window(maxIndex, count);
+        if (index < 0) return Optional.empty();
+        return Optional.of(new DatedValue(series.date(index), RateSeries.toDecimal(series.mid(index))));
+    }
+
+    /**
+     * Largest difference between ask and bid rate among the last {@code count} quotes, with the date it was quoted.
+     */
+    public Optional<DatedValue> maxSpread(int count) {
+        int index = window(maxSpreadIndex, count);
+        if (index < 0) return Optional.empty();
+        return Optional.of(new DatedValue(series.date(index), RateSeries.toDecimal(spread(index))));
+    }
+
+    /**
+     * Index of the extreme of the last {@code count} quotes, or of all of them if fewer are covered.
+     */
+    private int window(int[] indexes, int count) {
+        if (count < 1 || indexes.length == 0) return -1;
+        return indexes[Math.min(count, indexes.length) - 1];
+    }
+
+    private long spread(int index) {
+        long bid = series.bid(index);
+        long ask = series.ask(index);
+        return bid == ABSENT || ask == ABSENT ? ABSENT : ask - bid;
+    }
+}
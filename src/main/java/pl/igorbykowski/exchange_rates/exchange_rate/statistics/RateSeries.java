@@ -0,0 +1,203 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Quotes of one currency in ascending date order, stored column by column as epoch days and fixed-point
+ * rates scaled by 10^{@value #SCALE}.
+ * <p>
+ * NBP publishes at most six decimal places, so the scaled values are exact. Rates are converted back to
+ * {@link BigDecimal} only when a single quote or a result leaves the aggregation code. Slices returned by
+ * {@link #last(int)} and {@link #between(LocalDate, LocalDate)} share the arrays of this series.
+ */
+public final class RateSeries {
+
+    public static final int SCALE = 6;
+
+    /**
+     * Marks a rate missing from a quote, e.g. the mid of a table C quote.
+     */
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    private static final RateSeries EMPTY = new RateSeries(new int[0], new String[0], new long[0], new long[0], new long[0], 0, 0);
+
+    private final int[] epochDays;
+    private final String[] numbers;
+    private final long[] mids;
+    private final long[] bids;
+    private final long[] asks;
+    private final int offset;
+    private final int size;
+
+    private RateSeries(int[] epochDays, String[] numbers, long[] mids, long[] bids, long[] asks, int offset, int size) {
+        this.epochDays = epochDays;
+        this.numbers = numbers;
+        this.mids = mids;
+        this.bids = bids;
+        this.asks = asks;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static RateSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Copies the quotes into a new series, sorting them by date unless they already are.
+     */
+    public static RateSeries of(Collection<RateNBPResponse> rates) {
+        if (!isSortedByDate(rates))
+            return of(rates.stream().sorted(Comparator.comparing(RateNBPResponse::effectiveDate)).toList());
+        int size = rates.size();
+        int[] epochDays = new int[size];
+        String[] numbers = new String[size];
+        long[] mids = new long[size];
+        long[] bids = new long[size];
+        long[] asks = new long[size];
+        int i = 0;
+        for (RateNBPResponse rate : rates) {
+            epochDays[i] = Math.toIntExact(rate.effectiveDate().toEpochDay());
+            numbers[i] = rate.no();
+            mids[i] = toScaled(rate.mid());
+            bids[i] = toScaled(rate.bid());
+            asks[i] = toScaled(rate.ask());
+            i++;
+        }
+        return new RateSeries(epochDays, numbers, mids, bids, asks, 0, size);
+    }
+
+    /**
+     * Wraps columns of quotes already sorted by date, without copying them.
+     */
+    public static RateSeries ofColumns(int[] epochDays, String[] numbers, long[] mids, long[] bids, long[] asks) {
+        return new RateSeries(epochDays, numbers, mids, bids, asks, 0, epochDays.length);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int epochDay(int index) {
+        return epochDays[offset + checkIndex(index)];
+    }
+
+    public LocalDate date(int index) {
+        return LocalDate.ofEpochDay(epochDay(index));
+    }
+
+    public long mid(int index) {
+        return mids[offset + checkIndex(index)];
+    }
+
+    public long bid(int index) {
+        return bids[offset + checkIndex(index)];
+    }
+
+    public long ask(int index) {
+        return asks[offset + checkIndex(index)];
+    }
+
+    /**
+     * Returns the effective date of the latest quote, or nothing if the series is empty.
+     */
+    public Optional<LocalDate> latestDate() {
+        return isEmpty() ? Optional.empty() : Optional.of(date(size - 1));
+    }
+
+    public RateNBPResponse get(int index) {
+        int i = offset + checkIndex(index);
+        return new RateNBPResponse(numbers[i], LocalDate.ofEpochDay(epochDays[i]),
+                toDecimal(mids[i]), toDecimal(bids[i]), toDecimal(asks[i]));
+    }
+
+    /**
+     * Returns the position of the quote published on the date, or a negative value if there is none.
+     */
+    public int indexOf(LocalDate date) {
+        int found = Arrays.binarySearch(epochDays, offset, offset + size, Math.toIntExact(date.toEpochDay()));
+        return found >= 0 ? found - offset : -1;
+    }
+
+    /**
+     * Returns the last {@code count} quotes, or all of them if the series is shorter.
+     */
+    public RateSeries last(int count) {
+        int length = Math.max(0, Math.min(count, size));
+        return slice(size - length, size);
+    }
+
+    /**
+     * Returns the quotes published between both dates, inclusive.
+     */
+    public RateSeries between(LocalDate from, LocalDate to) {
+        return slice(insertionPoint(from.toEpochDay()), insertionPoint(to.toEpochDay() + 1));
+    }
+
+    /**
+     * Returns a view of the quotes as NBP responses, creating each one on access.
+     */
+    public List<RateNBPResponse> toRates() {
+        return new AbstractList<>() {
+            @Override
+            public RateNBPResponse get(int index) {
+                return RateSeries.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public static long toScaled(BigDecimal value) {
+        return value == null ? ABSENT : value.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a scaled rate back to a {@link BigDecimal} with the scale NBP publishes it with.
+     */
+    public static BigDecimal toDecimal(long scaled) {
+        return scaled == ABSENT ? null : RateNBPResponse.normalize(BigDecimal.valueOf(scaled, SCALE));
+    }
+
+    private static boolean isSortedByDate(Collection<RateNBPResponse> rates) {
+        LocalDate previous = null;
+        for (RateNBPResponse rate : rates) {
+            if (previous != null && rate.effectiveDate().isBefore(previous)) return false;
+            previous = rate.effectiveDate();
+        }
+        return true;
+    }
+
+    private RateSeries slice(int from, int to) {
+        if (from == 0 && to == size) return this;
+        return new RateSeries(epochDays, numbers, mids, bids, asks, offset + from, Math.max(0, to - from));
+    }
+
+    private int insertionPoint(long epochDay) {
+        int key = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, epochDay));
+        int found = Arrays.binarySearch(epochDays, offset, offset + size, key);
+        return (found >= 0 ? found : -found - 1) - offset;
+    }
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+}
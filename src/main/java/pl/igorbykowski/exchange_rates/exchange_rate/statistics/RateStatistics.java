@@ -0,0 +1,126 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+
+import static pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries.ABSENT;
+
+/**
+ * Summary of a series of quotes, computed in a single pass over its fixed-point rates.
+ * <p>
+ * Average rate statistics cover the quotes with a {@code mid}, spread statistics the quotes with both
+ * {@code bid} and {@code ask}. Sums are kept exact in scaled longs, so the mean and standard deviation are only
+ * rounded once, to {@value #SCALE} decimal places; sums too large for a long fail with an
+ * {@link ArithmeticException} instead of losing precision. On equal values the earliest quote wins.
+ */
+public final class RateStatistics {
+
+    public static final int SCALE = 6;
+
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final RateSeries series;
+    private final long[] mids;
+    private int count;
+    private long sum;
+    private long sumOfSquares;
+    private int minIndex = -1;
+    private int maxIndex = -1;
+    private int maxSpreadIndex = -1;
+    private long maxSpread;
+
+    private RateStatistics(RateSeries series) {
+        this.series = series;
+        this.mids = new long[series.size()];
+        for (int i = 0; i < series.size(); i++) accept(i);
+    }
+
+    public static RateStatistics of(RateSeries series) {
+        return new RateStatistics(series);
+    }
+
+    public static RateStatistics of(Collection<RateNBPResponse> rates) {
+        return of(RateSeries.of(rates));
+    }
+
+    private void accept(int index) {
+        long mid = series.mid(index);
+        if (mid != ABSENT) {
+            mids[count++] = mid;
+            sum = Math.addExact(sum, mid);
+            sumOfSquares = Math.addExact(sumOfSquares, Math.multiplyExact(mid, mid));
+            if (minIndex < 0 || mid < series.mid(minIndex)) minIndex = index;
+            if (maxIndex < 0 || mid > series.mid(maxIndex)) maxIndex = index;
+        }
+        long bid = series.bid(index);
+        long ask = series.ask(index);
+        if (bid != ABSENT && ask != ABSENT && (maxSpreadIndex < 0 || ask - bid > maxSpread)) {
+            maxSpreadIndex = index;
+            maxSpread = ask - bid;
+        }
+    }
+
+    /**
+     * Number of quotes with an average rate.
+     */
+    public int count() {
+        return count;
+    }
+
+    public Optional<DatedValue> min() {
+        return datedMid(minIndex);
+    }
+
+    public Optional<DatedValue> max() {
+        return datedMid(maxIndex);
+    }
+
+    public Optional<BigDecimal> mean() {
+        if (count == 0) return Optional.empty();
+        return Optional.of(BigDecimal.valueOf(sum, RateSeries.SCALE)
+                .divide(BigDecimal.valueOf(count), PRECISION)
+                .setScale(SCALE, RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * Population standard deviation of the average rates.
+     */
+    public Optional<BigDecimal> standardDeviation() {
+        if (count == 0) return Optional.empty();
+        BigDecimal n = BigDecimal.valueOf(count);
+        BigDecimal total = BigDecimal.valueOf(sum, RateSeries.SCALE);
+        BigDecimal variance = BigDecimal.valueOf(sumOfSquares, 2 * RateSeries.SCALE).multiply(n)
+                .subtract(total.multiply(total))
+                .divide(n.multiply(n), PRECISION);
+        return Optional.of(variance.sqrt(PRECISION).setScale(SCALE, RoundingMode.HALF_EVEN));
+    }
+
+    public Optional<BigDecimal> median() {
+        if (count == 0) return Optional.empty();
+        Arrays.sort(mids, 0, count);
+        int middle = count / 2;
+        return Optional.of(count % 2 == 1
+                ? RateSeries.toDecimal(mids[middle])
+                : RateNBPResponse.normalize(BigDecimal.valueOf(mids[middle - 1] + mids[middle], RateSeries.SCALE).divide(TWO)));
+    }
+
+    /**
+     * Largest difference between ask and bid rate, with the date it was quoted.
+     */
+    public Optional<DatedValue> maxSpread() {
+        if (maxSpreadIndex < 0) return Optional.empty();
+        return Optional.of(new DatedValue(series.date(maxSpreadIndex), RateSeries.toDecimal(maxSpread)));
+    }
+
+    private Optional<DatedValue> datedMid(int index) {
+        if (index < 0) return Optional.empty();
+        return Optional.of(new DatedValue(series.date(index), RateSeries.toDecimal(series.mid(index))));
+    }
+}
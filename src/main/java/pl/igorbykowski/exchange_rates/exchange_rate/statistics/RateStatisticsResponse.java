@@ -0,0 +1,22 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+
+import java.math.BigDecimal;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RateStatisticsResponse(
+        Currency currencyCode,
+        String currencyName,
+        int numOfQuotes,
+        DatedValue minAvgValue,
+        DatedValue maxAvgValue,
+        BigDecimal meanAvgValue,
+        BigDecimal medianAvgValue,
+        BigDecimal standardDeviation,
+        DatedValue majorDifference
+) {
+}
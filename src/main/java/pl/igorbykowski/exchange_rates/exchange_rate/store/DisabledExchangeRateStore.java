@@ -0,0 +1,37 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.store;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Store of an application running without a database: it keeps nothing, so rates missing from the in-memory
+ * tables, the archive and the response cache are downloaded from NBP.
+ */
+@Component
+@ConditionalOnProperty(name = "nbp.store.enabled", havingValue = "false")
+public class DisabledExchangeRateStore implements ExchangeRateStore {
+
+    @Override
+    public Optional<RateNBPResponse> findRate(RateTable table, Currency currency, LocalDate date) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<Currency, List<RateNBPResponse>> findRates(RateTable table, DateRange range) {
+        return Map.of();
+    }
+
+    @Override
+    public void saveRates(RateTable table, Currency currency, Collection<RateNBPResponse> rates) {
+    }
+}
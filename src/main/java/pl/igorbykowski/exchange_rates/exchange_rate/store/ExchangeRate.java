@@ -0,0 +1,63 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.store;
+
+import jakarta.persistence.*;
+import lombok.*;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "exchange_rate",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"rate_table", "currency", "effective_date"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rate_table", nullable = false, length = 1)
+    private RateTable rateTable;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "currency", nullable = false, length = 3)
+    private Currency currency;
+
+    @Column(name = "effective_date", nullable = false)
+    private LocalDate effectiveDate;
+
+    private String tableNumber;
+
+    @Column(precision = 19, scale = 6)
+    private BigDecimal mid;
+
+    @Column(precision = 19, scale = 6)
+    private BigDecimal bid;
+
+    @Column(precision = 19, scale = 6)
+    private BigDecimal ask;
+
+    static ExchangeRate of(RateTable table, Currency currency, RateNBPResponse rate) {
+        return ExchangeRate.builder()
+                .rateTable(table)
+                .currency(currency)
+                .effectiveDate(rate.effectiveDate())
+                .tableNumber(rate.no())
+                .mid(rate.mid())
+                .bid(rate.bid())
+                .ask(rate.ask())
+                .build();
+    }
+
+    RateNBPResponse toRateNBPResponse() {
+        return new RateNBPResponse(tableNumber, effectiveDate, mid, bid, ask);
+    }
+}
@@ -0,0 +1,25 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.store;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
+
+    Optional<ExchangeRate> findByRateTableAndCurrencyAndEffectiveDate(RateTable rateTable,
+                                                                      Currency currency,
+                                                                      LocalDate effectiveDate);
+
+    List<ExchangeRate> findAllByRateTableAndCurrencyAndEffectiveDateIn(RateTable rateTable,
+                                                                       Currency currency,
+                                                                       Collection<LocalDate> effectiveDates);
+
+    List<ExchangeRate> findAllByRateTableAndEffectiveDateBetweenOrderByEffectiveDate(RateTable rateTable,
+                                                                                    LocalDate from,
+                                                                                    LocalDate to);
+}
@@ -0,0 +1,28 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.store;
+
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Local copy of published NBP rates. Published quotes never change, so once a day is stored it can be
+ * served without calling NBP again.
+ */
+public interface ExchangeRateStore {
+
+    Optional<RateNBPResponse> findRate(RateTable table, Currency currency, LocalDate date);
+
+    /**
+     * Returns the stored rates of every currency of the table within the range, in date order.
+     */
+    Map<Currency, List<RateNBPResponse>> findRates(RateTable table, DateRange range);
+
+    void saveRates(RateTable table, Currency currency, Collection<RateNBPResponse> rates);
+}
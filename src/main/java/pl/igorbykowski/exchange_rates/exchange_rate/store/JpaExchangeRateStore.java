@@ -0,0 +1,69 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.store;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Store kept in the database through JPA. Replicas pointed at the same database share it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "nbp.store.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaExchangeRateStore implements ExchangeRateStore {
+
+    private final ExchangeRateRepository repository;
+
+    @Override
+    public Optional<RateNBPResponse> findRate(RateTable table, Currency currency, LocalDate date) {
+        return repository.findByRateTableAndCurrencyAndEffectiveDate(table, currency, date)
+                .map(ExchangeRate::toRateNBPResponse);
+    }
+
+    @Override
+    public Map<Currency, List<RateNBPResponse>> findRates(RateTable table, DateRange range) {
+        Map<Currency, List<RateNBPResponse>> ratesByCurrency = new EnumMap<>(Currency.class);
+        for (ExchangeRate rate : repository.findAllByRateTableAndEffectiveDateBetweenOrderByEffectiveDate(table,
+                range.from(), range.to())) {
+            ratesByCurrency.computeIfAbsent(rate.getCurrency(), c -> new ArrayList<>()).add(rate.toRateNBPResponse());
+        }
+        return ratesByCurrency;
+    }
+
+    @Override
+    public void saveRates(RateTable table, Currency currency, Collection<RateNBPResponse> rates) {
+        if (rates.isEmpty()) return;
+        Set<LocalDate> storedDates = repository.findAllByRateTableAndCurrencyAndEffectiveDateIn(table, currency,
+                        rates.stream().map(RateNBPResponse::effectiveDate).toList())
+                .stream()
+                .map(ExchangeRate::getEffectiveDate)
+                .collect(Collectors.toSet());
+        List<ExchangeRate> missing = rates.stream()
+                .filter(rate -> !storedDates.contains(rate.effectiveDate()))
+                .map(rate -> ExchangeRate.of(table, currency, rate))
+                .toList();
+        if (missing.isEmpty()) return;
+        try {
+            repository.saveAll(missing);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Rates for {} from table {} were already stored by a concurrent request.", currency, table);
+        }
+    }
+}
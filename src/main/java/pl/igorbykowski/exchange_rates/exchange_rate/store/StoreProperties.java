@@ -0,0 +1,15 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param enabled whether rates are kept in the database; without it the application needs no data source, and
+ *                cannot run in {@link pl.igorbykowski.exchange_rates.exchange_rate.cluster.ClusterProperties#enabled()
+ *                cluster mode}
+ */
+@ConfigurationProperties("nbp.store")
+public record StoreProperties(
+        @DefaultValue("true") boolean enabled
+) {
+}
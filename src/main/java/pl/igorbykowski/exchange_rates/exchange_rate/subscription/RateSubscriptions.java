@@ -0,0 +1,272 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.subscription;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.TableRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.TableIngestedEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the quotes of every newly ingested table to the Server-Sent Events subscribers of their currencies, so
+ * that clients learn about a publication without polling. The ingestion is the only poller of NBP; each quote is
+ * serialized once and the same bytes are written to all its subscribers.
+ * <p>
+ * Events are queued per subscriber and sent to each subscriber in order by a pool of sender threads, or by virtual
+ * threads when they are enabled, so that a slow client only holds up its own events. Subscribers falling more than
+ * {@link SubscriptionProperties#sendQueueSize()} events behind, or whose connection is closed, are dropped. The number
+ * of subscribers and of events sent are published as the {@value #SUBSCRIBERS_METRIC} and {@value #EVENTS_METRIC}
+ * metrics.
+ */
+@Component
+public class RateSubscriptions implements MeterBinder, DisposableBean {
+    static final String EVENT_NAME = "rate";
+    static final String SUBSCRIBERS_METRIC = "exchange.rates.subscribers";
+    static final String EVENTS_METRIC = "exchange.rates.subscription.events";
+    private static final String SENDER_THREAD_NAME_PREFIX = "rate-subscription-sender-";
+
+    private final ObjectMapper objectMapper;
+    private final SubscriptionProperties properties;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Semaphore slots;
+    private final Set<DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+    private final Set<DataWithMediaType> subscribed = SseEmitter.event().comment("subscribed").build();
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final Executor sender;
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rate-subscriptions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RateSubscriptions(ObjectMapper objectMapper, SubscriptionProperties properties, Environment environment) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.slots = new Semaphore(properties.maxSubscribers());
+        this.sender = senderExecutor(properties, environment);
+        long interval = properties.heartbeatInterval().toMillis();
+        publisher.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(Set<Currency> currencies) {
+        if (!slots.tryAcquire())
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers, try again later");
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, EnumSet.copyOf(currencies), properties.sendQueueSize());
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        // Sent as soon as the response starts, so that clients see the subscription open before the first quote
+        enqueue(subscriber, subscribed);
+        return emitter;
+    }
+
+    @EventListener
+    public void onTableIngested(TableIngestedEvent event) {
+        publisher.execute(() -> publish(event));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(SUBSCRIBERS_METRIC, subscribers, Set::size)
+                .description("Open rate update subscriptions")
+                .register(registry);
+        FunctionCounter.builder(EVENTS_METRIC, eventsSent, AtomicLong::get)
+                .description("Rate updates sent to subscribers")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        publisher.shutdownNow();
+        if (sender instanceof ThreadPoolTaskExecutor pool) pool.shutdown();
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+    }
+
+    private void publish(TableIngestedEvent event) {
+        if (subscribers.isEmpty()) return;
+        Map<Currency, Set<DataWithMediaType>> updates = new EnumMap<>(Currency.class);
+        for (TableRateNBPResponse rate : event.latest().rates()) {
+            Currency currency = Currency.fromCode(rate.code());
+            if (currency != null) updates.put(currency, toEvent(event, currency, rate));
+        }
+        for (Subscriber subscriber : subscribers) {
+            for (Currency currency : subscriber.currencies()) {
+                Set<DataWithMediaType> update = updates.get(currency);
+                if (update != null && !enqueue(subscriber, update)) break;
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) enqueue(subscriber, heartbeat);
+    }
+
+    /**
+     * Queues the event for the subscriber and starts sending its queue unless it is being sent already. A subscriber
+     * whose queue is full is dropped; its connection is closed once the send it is blocked in returns.
+     */
+    private boolean enqueue(Subscriber subscriber, Set<DataWithMediaType> event) {
+        if (subscriber.dropped()) return false;
+        if (!subscriber.queue().offer(event)) {
+            subscriber.drop();
+            remove(subscriber);
+            return false;
+        }
+        if (subscriber.startSending()) sender.execute(() -> sendQueued(subscriber));
+        return true;
+    }
+
+    private void sendQueued(Subscriber subscriber) {
+        do {
+            Set<DataWithMediaType> event;
+            while (!subscriber.dropped() && (event = subscriber.queue().poll()) != null) {
+                if (send(subscriber, event) && event != heartbeat && event != subscribed) eventsSent.incrementAndGet();
+            }
+            if (subscriber.dropped()) {
+                subscriber.queue().clear();
+                subscriber.emitter().complete();
+                return;
+            }
+        } while (subscriber.stopSending());
+    }
+
+    private boolean send(Subscriber subscriber, Set<DataWithMediaType> event) {
+        try {
+            subscriber.emitter().send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone or the subscription timed out
+            subscriber.drop();
+            remove(subscriber);
+            return false;
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) slots.release();
+    }
+
+    private Set<DataWithMediaType> toEvent(TableIngestedEvent event, Currency currency, TableRateNBPResponse rate) {
+        ExchangeRateTableNBPResponse table = event.latest();
+        RateUpdateResponse update = RateUpdateResponse.builder()
+                .table(event.table())
+                .tableNo(table.no())
+                .currencyCode(currency)
+                .currencyName(currency.getDescription())
+                .date(table.effectiveDate())
+                .mid(rate.mid())
+                .bid(rate.bid())
+                .ask(rate.ask())
+                .build();
+        try {
+            return SseEmitter.event()
+                    .id(event.table().name() + table.effectiveDate() + "-" + currency.name())
+                    .name(EVENT_NAME)
+                    .data(objectMapper.writeValueAsString(update))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Executor senderExecutor(SubscriptionProperties properties, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(SENDER_THREAD_NAME_PREFIX);
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.senderThreads());
+        executor.setMaxPoolSize(properties.senderThreads());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setDaemon(true);
+        executor.setThreadNamePrefix(SENDER_THREAD_NAME_PREFIX);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Open subscription with the events waiting to be sent to it. At most one thread sends them at a time, the one
+     * that flipped {@code sending} on.
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Currency> currencies;
+        private final BlockingQueue<Set<DataWithMediaType>> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean dropped;
+
+        Subscriber(SseEmitter emitter, Set<Currency> currencies, int queueSize) {
+            this.emitter = emitter;
+            this.currencies = currencies;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        Set<Currency> currencies() {
+            return currencies;
+        }
+
+        BlockingQueue<Set<DataWithMediaType>> queue() {
+            return queue;
+        }
+
+        boolean dropped() {
+            return dropped;
+        }
+
+        void drop() {
+            dropped = true;
+        }
+
+        boolean startSending() {
+            return sending.compareAndSet(false, true);
+        }
+
+        /**
+         * Stops sending, unless an event was queued in the meantime by a thread that saw this one still sending.
+         *
+         * @return whether to go on sending
+         */
+        boolean stopSending() {
+            sending.set(false);
+            return !queue.isEmpty() && startSending();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.subscription;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RateUpdateResponse(
+        RateTable table,
+        String tableNo,
+        Currency currencyCode,
+        String currencyName,
+        LocalDate date,
+        BigDecimal mid,
+        BigDecimal bid,
+        BigDecimal ask
+) {
+}
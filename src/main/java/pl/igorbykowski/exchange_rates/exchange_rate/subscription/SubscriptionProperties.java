@@ -0,0 +1,23 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.subscription;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maxSubscribers    maximum number of open subscriptions; further ones are rejected with 503
+ * @param heartbeatInterval time between comments sent to keep idle connections open and detect closed ones
+ * @param timeout           time after which a subscription is closed; clients are expected to reconnect
+ * @param sendQueueSize     events waiting to be sent to one subscriber; subscribers falling further behind are dropped
+ * @param senderThreads     threads sending events to subscribers, unless virtual threads are enabled
+ */
+@ConfigurationProperties("nbp.subscriptions")
+public record SubscriptionProperties(
+        @DefaultValue("10000") int maxSubscribers,
+        @DefaultValue("30s") Duration heartbeatInterval,
+        @DefaultValue("1h") Duration timeout,
+        @DefaultValue("64") int sendQueueSize,
+        @DefaultValue("8") int senderThreads
+) {
+}
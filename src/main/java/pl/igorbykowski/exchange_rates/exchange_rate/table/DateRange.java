@@ -0,0 +1,64 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.table;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+
+/**
+ * Inclusive range of dates, as accepted by the NBP range endpoints.
+ */
+public record DateRange(LocalDate from, LocalDate to) {
+
+    /**
+     * NBP rejects range queries spanning more than 93 days.
+     */
+    public static final int NBP_MAX_DAYS = 93;
+
+    public DateRange {
+        if (from.isAfter(to))
+            throw new IllegalArgumentException("Start date " + from + " is after end date " + to);
+    }
+
+    /**
+     * Returns the fewest ranges of at most {@code maxDays} days that together cover all given dates, skipping
+     * the gaps between them.
+     */
+    public static List<DateRange> covering(SortedSet<LocalDate> dates, int maxDays) {
+        List<DateRange> ranges = new ArrayList<>();
+        LocalDate start = null;
+        LocalDate end = null;
+        for (LocalDate date : dates) {
+            if (start != null && date.isAfter(start.plusDays(maxDays - 1L))) {
+                ranges.add(new DateRange(start, end));
+                start = null;
+            }
+            if (start == null) start = date;
+            end = date;
+        }
+        if (start != null) ranges.add(new DateRange(start, end));
+        return ranges;
+    }
+
+    /**
+     * Returns the part of this range that falls within the given one, or an empty result if they do not overlap.
+     */
+    public Optional<DateRange> intersect(DateRange other) {
+        LocalDate start = from.isAfter(other.from) ? from : other.from;
+        LocalDate end = to.isBefore(other.to) ? to : other.to;
+        return start.isAfter(end) ? Optional.empty() : Optional.of(new DateRange(start, end));
+    }
+
+    public List<DateRange> split(int maxDays) {
+        List<DateRange> ranges = new ArrayList<>();
+        LocalDate start = from;
+        while (!start.isAfter(to)) {
+            LocalDate end = start.plusDays(maxDays - 1L);
+            if (end.isAfter(to)) end = to;
+            ranges.add(new DateRange(start, end));
+            start = end.plusDays(1);
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,168 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.table;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.cluster.IngestionLeadership;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClient;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.TableRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+import pl.igorbykowski.exchange_rates.exchange_rate.store.ExchangeRateStore;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Downloads whole NBP tables instead of querying currencies one by one: at startup the configured history is
+ * fetched in 93-day ranges, and after each publication only the tables published since the last download. Each
+ * ingestion that adds tables publishes a {@link TableIngestedEvent} with the latest of them.
+ * <p>
+ * Of replicas sharing a database only the {@link IngestionLeadership leading} one downloads each table; the others
+ * read it from the shared store once the leader saved it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExchangeRateTableIngestion {
+    private final NbpApiClient client;
+    private final ExchangeRateTableSnapshot snapshot;
+    private final ExchangeRateStore store;
+    private final PublicationSchedule schedule;
+    private final IngestionProperties properties;
+    private final TaskScheduler taskScheduler;
+    private final IngestionLeadership leadership;
+    private final ApplicationEventPublisher events;
+    private final Clock clock;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ingestAtStartup() {
+        if (!properties.enabled()) return;
+        for (RateTable table : RateTable.values()) ingestAndReschedule(table);
+    }
+
+    public void ingest(RateTable table) {
+        LocalDate to = schedule.latestPublicationDay(table);
+        LocalDate oldestKept = to.minusDays(properties.historyDays() - 1L);
+        LocalDate from = snapshot.latestEffectiveDate(table)
+                .map(latest -> latest.plusDays(1))
+                .filter(next -> next.isAfter(oldestKept))
+                .orElse(oldestKept);
+        if (from.isAfter(to)) return;
+        if (leadership.tryLead(table)) download(table, new DateRange(from, to), oldestKept);
+        else readShared(table, from, to, oldestKept);
+    }
+
+    private void download(RateTable table, DateRange dates, LocalDate oldestKept) {
+        Map<Currency, List<RateNBPResponse>> ratesByCurrency = new EnumMap<>(Currency.class);
+        ExchangeRateTableNBPResponse latest = null;
+        int tables = 0;
+        for (DateRange range : dates.split(DateRange.NBP_MAX_DAYS)) {
+            for (ExchangeRateTableNBPResponse tableResponse : getTables(table, range)) {
+                splitByCurrency(tableResponse, ratesByCurrency);
+                if (latest == null || tableResponse.effectiveDate().isAfter(latest.effectiveDate())) latest = tableResponse;
+                tables++;
+            }
+        }
+        ratesByCurrency.forEach((currency, rates) -> store.saveRates(table, currency, rates));
+        snapshot.update(table, ratesByCurrency, oldestKept);
+        log.info("Ingested {} NBP tables {} published between {} and {}.", tables, table, dates.from(), dates.to());
+        if (latest == null) return;
+        leadership.ingested(table, latest.effectiveDate());
+        events.publishEvent(new TableIngestedEvent(table, latest));
+    }
+
+    /**
+     * Reads the tables another replica downloaded from the shared store, up to the last one it finished saving.
+     */
+    private void readShared(RateTable table, LocalDate from, LocalDate to, LocalDate oldestKept) {
+        Optional<LocalDate> ingestedUpTo = leadership.ingestedUpTo(table)
+                .map(date -> date.isAfter(to) ? to : date)
+                .filter(date -> !date.isBefore(from));
+        if (ingestedUpTo.isEmpty()) return;
+        Map<Currency, List<RateNBPResponse>> ratesByCurrency = store.findRates(table, new DateRange(from, ingestedUpTo.get()));
+        snapshot.update(table, ratesByCurrency, oldestKept);
+        log.info("Read NBP tables {} published between {} and {} from the shared store.", table, from, ingestedUpTo.get());
+        latestTable(table, ratesByCurrency).ifPresent(latest -> events.publishEvent(new TableIngestedEvent(table, latest)));
+    }
+
+    /**
+     * Ingests the table and schedules the next ingestion whatever happens, so that a single failure does not stop
+     * ingesting the table until restart.
+     */
+    private void ingestAndReschedule(RateTable table) {
+        try {
+            ingest(table);
+        } catch (RestClientException | CompletionException | DataAccessException e) {
+            log.warn("Cannot ingest NBP table {}: {}", table, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Unexpected failure ingesting NBP table {}.", table, e);
+        } finally {
+            scheduleNextIngestion(table);
+        }
+    }
+
+    private void scheduleNextIngestion(RateTable table) {
+        Instant next = snapshot.isCurrent(table)
+                ? schedule.nextPublication(table).toInstant().plus(properties.publicationDelay())
+                : Instant.now(clock).plus(properties.publicationDelay());
+        taskScheduler.schedule(() -> ingestAndReschedule(table), next);
+    }
+
+    private List<ExchangeRateTableNBPResponse> getTables(RateTable table, DateRange range) {
+        try {
+            return client.getTables(client.tablesUrl(table, range)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof HttpClientErrorException.NotFound) return List.of();
+            throw e;
+        }
+    }
+
+    /**
+     * Puts the latest rates of the currencies back together into the table they were published in.
+     */
+    private static Optional<ExchangeRateTableNBPResponse> latestTable(RateTable table,
+                                                                      Map<Currency, List<RateNBPResponse>> ratesByCurrency) {
+        RateNBPResponse latest = null;
+        List<TableRateNBPResponse> rates = new ArrayList<>();
+        for (Map.Entry<Currency, List<RateNBPResponse>> entry : ratesByCurrency.entrySet()) {
+            RateNBPResponse rate = entry.getValue().get(entry.getValue().size() - 1);
+            if (latest != null && rate.effectiveDate().isBefore(latest.effectiveDate())) continue;
+            if (latest == null || rate.effectiveDate().isAfter(latest.effectiveDate())) {
+                latest = rate;
+                rates.clear();
+            }
+            Currency currency = entry.getKey();
+            rates.add(new TableRateNBPResponse(currency.getDescription(), currency.name(), rate.mid(), rate.bid(), rate.ask()));
+        }
+        if (latest == null) return Optional.empty();
+        return Optional.of(new ExchangeRateTableNBPResponse(table.name(), latest.no(), latest.effectiveDate(), rates));
+    }
+
+    private static void splitByCurrency(ExchangeRateTableNBPResponse tableResponse,
+                                        Map<Currency, List<RateNBPResponse>> ratesByCurrency) {
+        for (TableRateNBPResponse rate : tableResponse.rates()) {
+            Currency currency = Currency.fromCode(rate.code());
+            if (currency == null) {
+                log.debug("Skipping unknown currency {} of NBP table {}.", rate.code(), tableResponse.no());
+                continue;
+            }
+            ratesByCurrency.computeIfAbsent(currency, c -> new ArrayList<>())
+                    .add(new RateNBPResponse(tableResponse.no(), tableResponse.effectiveDate(),
+                            rate.mid(), rate.bid(), rate.ask()));
+        }
+    }
+}
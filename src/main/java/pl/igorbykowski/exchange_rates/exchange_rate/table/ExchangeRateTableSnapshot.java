@@ -0,0 +1,169 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.table;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.LastQuotes;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory copy of the most recently downloaded NBP tables, split per currency into {@link RateSeries}.
+ * <p>
+ * Every update publishes a new immutable history, so readers never see a partially applied download. Besides the
+ * series, the history keeps the mid rates of every day as {@link TableRates}, for lookups across currencies, and
+ * the extremes of the last quotes of every currency as {@link LastQuotes}, computed once per download instead of
+ * once per request.
+ * <p>
+ * Lookups are counted per table as hits or misses of the {@value #LOOKUPS_METRIC} metric.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExchangeRateTableSnapshot implements MeterBinder {
+
+    static final String LOOKUPS_METRIC = "exchange.rates.snapshot.lookups";
+
+    private final PublicationSchedule schedule;
+    private final Map<RateTable, TableHistory> histories = new ConcurrentHashMap<>();
+    private final Map<RateTable, LongAdder> hits = counters();
+    private final Map<RateTable, LongAdder> misses = counters();
+
+    public Optional<RateNBPResponse> findRate(RateTable table, Currency currency, LocalDate date) {
+        RateSeries rates = seriesOf(table, currency);
+        int index = rates.indexOf(date);
+        return counted(table, index < 0 ? Optional.empty() : Optional.of(rates.get(index)));
+    }
+
+    /**
+     * Returns the last {@code count} quotes in ascending date order, provided the snapshot already holds the
+     * latest published table and at least {@code count} quotes of the currency.
+     */
+    public Optional<RateSeries> findLastRates(RateTable table, Currency currency, int count) {
+        if (count < 1 || !isCurrent(table)) return counted(table, Optional.empty());
+        RateSeries rates = seriesOf(table, currency);
+        if (rates.size() < count) return counted(table, Optional.empty());
+        return counted(table, Optional.of(rates.last(count)));
+    }
+
+    /**
+     * Returns the extremes of the last quotes, answering any {@code count} up to {@link LastQuotes#MAX_COUNT}, on
+     * the same conditions as {@link #findLastRates(RateTable, Currency, int)}.
+     */
+    public Optional<LastQuotes> findLastQuotes(RateTable table, Currency currency, int count) {
+        if (count < 1 || count > LastQuotes.MAX_COUNT || !isCurrent(table)) return counted(table, Optional.empty());
+        TableHistory history = histories.get(table);
+        LastQuotes lastQuotes = history.lastQuotes().get(currency);
+        if (lastQuotes == null || lastQuotes.size() < count) return counted(table, Optional.empty());
+        return counted(table, Optional.of(lastQuotes));
+    }
+
+    /**
+     * Returns the quotes published within the range in ascending date order, provided the snapshot holds every
+     * table of the range: its history reaches back to the start of the range and is either current or already
+     * past the end of the range.
+     */
+    public Optional<RateSeries> findRates(RateTable table, Currency currency, DateRange range) {
+        TableHistory history = histories.get(table);
+        if (history == null || history.oldestKept().isAfter(range.from())) return counted(table, Optional.empty());
+        if (history.latestEffectiveDate().isBefore(range.to()) && !isCurrent(table)) return counted(table, Optional.empty());
+        return counted(table, Optional.of(seriesOf(table, currency).between(range.from(), range.to())));
+    }
+
+    /**
+     * Returns the mid rates of all currencies from the table published on the date.
+     */
+    public Optional<TableRates> findTable(RateTable table, LocalDate date) {
+        TableHistory history = histories.getOrDefault(table, TableHistory.EMPTY);
+        int index = Arrays.binarySearch(history.tableDays(), Math.toIntExact(date.toEpochDay()));
+        return counted(table, index < 0 ? Optional.empty() : Optional.of(history.tables()[index]));
+    }
+
+    public Optional<LocalDate> latestEffectiveDate(RateTable table) {
+        return Optional.ofNullable(histories.get(table)).map(TableHistory::latestEffectiveDate);
+    }
+
+    public boolean isCurrent(RateTable table) {
+        return latestEffectiveDate(table)
+                .filter(latest -> !latest.isBefore(schedule.latestPublicationDay(table)))
+                .isPresent();
+    }
+
+    synchronized void update(RateTable table, Map<Currency, List<RateNBPResponse>> newRates, LocalDate oldestKept) {
+        TableHistory current = histories.getOrDefault(table, TableHistory.EMPTY);
+        Map<Currency, NavigableMap<LocalDate, RateNBPResponse>> merged = new EnumMap<>(Currency.class);
+        current.rates().forEach((currency, rates) -> {
+            NavigableMap<LocalDate, RateNBPResponse> kept = new TreeMap<>();
+            rates.between(oldestKept, LocalDate.MAX).toRates().forEach(rate -> kept.put(rate.effectiveDate(), rate));
+            merged.put(currency, kept);
+        });
+        LocalDate latest = current.latestEffectiveDate();
+        for (Map.Entry<Currency, List<RateNBPResponse>> entry : newRates.entrySet()) {
+            NavigableMap<LocalDate, RateNBPResponse> rates = merged.computeIfAbsent(entry.getKey(), c -> new TreeMap<>());
+            for (RateNBPResponse rate : entry.getValue()) {
+                if (rate.effectiveDate().isBefore(oldestKept)) continue;
+                rates.put(rate.effectiveDate(), rate);
+                if (latest == null || rate.effectiveDate().isAfter(latest)) latest = rate.effectiveDate();
+            }
+        }
+        if (latest == null) return;
+        Map<Currency, RateSeries> series = new EnumMap<>(Currency.class);
+        Map<Currency, LastQuotes> lastQuotes = new EnumMap<>(Currency.class);
+        merged.forEach((currency, rates) -> {
+            series.put(currency, RateSeries.of(rates.values()));
+            lastQuotes.put(currency, LastQuotes.of(series.get(currency)));
+        });
+        TableRates[] tables = TableRates.byDay(series);
+        int[] tableDays = Arrays.stream(tables).mapToInt(rates -> Math.toIntExact(rates.effectiveDate().toEpochDay())).toArray();
+        histories.put(table, new TableHistory(oldestKept, latest, Collections.unmodifiableMap(series),
+                Collections.unmodifiableMap(lastQuotes), tableDays, tables));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RateTable table : RateTable.values()) {
+            FunctionCounter.builder(LOOKUPS_METRIC, hits.get(table), LongAdder::sum)
+                    .description("Lookups of quotes answered from the in-memory tables")
+                    .tags("table", table.name(), "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder(LOOKUPS_METRIC, misses.get(table), LongAdder::sum)
+                    .description("Lookups of quotes answered from the in-memory tables")
+                    .tags("table", table.name(), "result", "miss")
+                    .register(registry);
+        }
+    }
+
+    private <T> Optional<T> counted(RateTable table, Optional<T> result) {
+        (result.isPresent() ? hits : misses).get(table).increment();
+        return result;
+    }
+
+    private static Map<RateTable, LongAdder> counters() {
+        Map<RateTable, LongAdder> counters = new EnumMap<>(RateTable.class);
+        for (RateTable table : RateTable.values()) counters.put(table, new LongAdder());
+        return Collections.unmodifiableMap(counters);
+    }
+
+    private RateSeries seriesOf(RateTable table, Currency currency) {
+        TableHistory history = histories.get(table);
+        return history == null ? RateSeries.empty() : history.rates().getOrDefault(currency, RateSeries.empty());
+    }
+
+    private record TableHistory(LocalDate oldestKept,
+                                LocalDate latestEffectiveDate,
+                                Map<Currency, RateSeries> rates,
+                                Map<Currency, LastQuotes> lastQuotes,
+                                int[] tableDays,
+                                TableRates[] tables) {
+        private static final TableHistory EMPTY = new TableHistory(null, null, Map.of(), Map.of(), new int[0], new TableRates[0]);
+    }
+}
@@ -0,0 +1,19 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.table;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled          whether whole NBP tables are downloaded at startup and after each publication
+ * @param historyDays      number of calendar days of tables kept in the snapshot
+ * @param publicationDelay how long after the scheduled publication time the tables are downloaded
+ */
+@ConfigurationProperties("nbp.ingestion")
+public record IngestionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("380") int historyDays,
+        @DefaultValue("5m") Duration publicationDelay
+) {
+}
@@ -0,0 +1,16 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.table;
+
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+
+/**
+ * Published after an ingestion added tables to the snapshot.
+ *
+ * @param table  which table was ingested
+ * @param latest the most recently published of the ingested tables
+ */
+public record TableIngestedEvent(
+        RateTable table,
+        ExchangeRateTableNBPResponse latest
+) {
+}
@@ -0,0 +1,73 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.table;
+
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.TableRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Mid rates of every currency quoted in one table, as fixed-point values scaled like {@link RateSeries} and
+ * indexed by currency, so that a cross rate of any two currencies takes two array reads.
+ */
+public final class TableRates {
+
+    private final LocalDate effectiveDate;
+    private final long[] mids;
+
+    private TableRates(LocalDate effectiveDate, long[] mids) {
+        this.effectiveDate = effectiveDate;
+        this.mids = mids;
+    }
+
+    public static TableRates of(ExchangeRateTableNBPResponse table) {
+        long[] mids = absentMids();
+        for (TableRateNBPResponse rate : table.rates()) {
+            Currency currency = Currency.fromCode(rate.code());
+            if (currency != null) mids[currency.ordinal()] = RateSeries.toScaled(rate.mid());
+        }
+        return new TableRates(table.effectiveDate(), mids);
+    }
+
+    public LocalDate effectiveDate() {
+        return effectiveDate;
+    }
+
+    /**
+     * Returns the scaled mid rate of the currency, or {@link RateSeries#ABSENT} if the table does not quote it.
+     */
+    public long mid(Currency currency) {
+        return mids[currency.ordinal()];
+    }
+
+    /**
+     * Transposes per-currency series into one table per day on which any currency has a mid rate, in ascending
+     * date order.
+     */
+    static TableRates[] byDay(Map<Currency, RateSeries> series) {
+        NavigableMap<Integer, long[]> days = new TreeMap<>();
+        for (Map.Entry<Currency, RateSeries> entry : series.entrySet()) {
+            RateSeries rates = entry.getValue();
+            for (int i = 0; i < rates.size(); i++) {
+                if (rates.mid(i) == RateSeries.ABSENT) continue;
+                days.computeIfAbsent(rates.epochDay(i), day -> absentMids())[entry.getKey().ordinal()] = rates.mid(i);
+            }
+        }
+        return days.entrySet().stream()
+                .map(day -> new TableRates(LocalDate.ofEpochDay(day.getKey()), day.getValue()))
+                .toArray(TableRates[]::new);
+    }
+
+    private static final int CURRENCIES = Currency.values().length;
+
+    private static long[] absentMids() {
+        long[] mids = new long[CURRENCIES];
+        Arrays.fill(mids, RateSeries.ABSENT);
+        return mids;
+    }
+}
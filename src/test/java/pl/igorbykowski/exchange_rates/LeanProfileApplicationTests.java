@@ -0,0 +1,28 @@
+package pl.igorbykowski.exchange_rates;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import pl.igorbykowski.exchange_rates.exchange_rate.store.DisabledExchangeRateStore;
+import pl.igorbykowski.exchange_rates.exchange_rate.store.ExchangeRateStore;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "nbp.ingestion.enabled=false")
+@ActiveProfiles("lean")
+class LeanProfileApplicationTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	void startsWithoutDatabase() {
+		assertThat(context.getBeanNamesForType(DataSource.class)).isEmpty();
+		assertThat(context.getBean(ExchangeRateStore.class)).isInstanceOf(DisabledExchangeRateStore.class);
+	}
+
+}
@@ -0,0 +1,30 @@
+package pl.igorbykowski.exchange_rates.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.batch.AverageExchangeRateQuery;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.TableRateNBPResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeHintsConfigTest {
+
+    @Test
+    void registersNestedRecordsForJsonBinding() throws NoSuchMethodException {
+        // Given
+        RuntimeHints hints = new RuntimeHints();
+
+        // When
+        new NativeHintsConfig.JsonBindingHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(RateNBPResponse.class, "mid")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(TableRateNBPResponse.class, "code")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(AverageExchangeRateResponse.class, "averageExchangeRate")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(AverageExchangeRateQuery.class.getDeclaredConstructors()[0]))
+                .accepts(hints);
+    }
+}
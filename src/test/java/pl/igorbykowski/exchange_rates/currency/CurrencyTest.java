@@ -0,0 +1,48 @@
+package pl.igorbykowski.exchange_rates.currency;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrencyTest {
+
+    @Test
+    void findsEveryCurrency_givenCodeInAnyCase() {
+        for (Currency currency : Currency.values()) {
+            // When, Then
+            assertThat(Currency.fromCode(currency.name())).isSameAs(currency);
+            assertThat(Currency.fromCode(currency.name().toLowerCase())).isSameAs(currency);
+        }
+        assertThat(Currency.fromCode("uSd")).isSameAs(Currency.USD);
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"XYZ", "PLN", "US", "USDX", "U$D", "US@", "ÜSD"})
+    void findsNothing_givenUnknownCode(String code) {
+        // When, Then
+        assertThat(Currency.fromCode(code)).isNull();
+    }
+
+    @Test
+    void parsesUnitMultiplierFromCode() {
+        // When, Then
+        assertThat(Currency.USD.getUnitMultiplier()).isEqualTo(1);
+        assertThat(Currency.JPY.getUnitMultiplier()).isEqualTo(100);
+        assertThat(Currency.IDR.getUnitMultiplier()).isEqualTo(10000);
+    }
+
+    @Test
+    void knowsTablesQuotingCurrency() {
+        // When, Then
+        assertThat(Currency.EUR.getMidTable()).isEqualTo(RateTable.A);
+        assertThat(Currency.EUR.isQuotedIn(RateTable.C)).isTrue();
+        assertThat(Currency.THB.isQuotedIn(RateTable.C)).isFalse();
+        assertThat(Currency.SAR.getMidTable()).isEqualTo(RateTable.B);
+        assertThat(Currency.SAR.isQuotedIn(RateTable.A)).isFalse();
+        assertThat(Currency.values()).filteredOn(currency -> currency.getMidTable() == RateTable.B).hasSizeGreaterThan(100);
+    }
+}
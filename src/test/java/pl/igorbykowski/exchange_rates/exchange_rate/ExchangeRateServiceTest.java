@@ -1,5 +1,11 @@
 package pl.igorbykowski.exchange_rates.exchange_rate;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,39 +13,104 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentMatchers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.archive.ExchangeRateArchive;
 import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.cache.NbpCacheProperties;
+import pl.igorbykowski.exchange_rates.exchange_rate.cache.NbpResponseCache;
 import pl.igorbykowski.exchange_rates.exchange_rate.difference.BidAskDifferenceResponse;
 import pl.igorbykowski.exchange_rates.exchange_rate.min_max.MinMaxAverageValueResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClient;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClientProperties;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpResilience;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpResilienceProperties;
 import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateNBPResponse;
 import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
-
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.AsOf;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.DateResolution;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationCalendar;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationProperties;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+import pl.igorbykowski.exchange_rates.exchange_rate.series.AverageExchangeRateSeries;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.DatedValue;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.LastQuotes;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateStatisticsResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.store.ExchangeRateStore;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.ExchangeRateTableSnapshot;
+
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ExchangeRateServiceTest {
 
-    @InjectMocks
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
     private ExchangeRateService service;
 
     @Mock
-    private RestTemplate restTemplate;
+    private HttpClient httpClient;
+
+    @Mock
+    private HttpResponse<byte[]> httpResponse;
+
+    @Mock
+    private ExchangeRateStore store;
+
+    @Mock
+    private ExchangeRateTableSnapshot snapshot;
+
+    @Mock
+    private ExchangeRateArchive archive;
+
+    private final PublicationProperties publicationProperties = new PublicationProperties(ZoneId.of("Europe/Warsaw"),
+            Map.of(RateTable.A, LocalTime.of(12, 15), RateTable.B, LocalTime.of(12, 15), RateTable.C, LocalTime.of(8, 15)),
+            Set.of());
+
+    private final PublicationCalendar calendar = new PublicationCalendar(publicationProperties);
+
+    private final PublicationSchedule schedule = new PublicationSchedule(publicationProperties, calendar,
+            Clock.systemDefaultZone());
+
+    private final NbpResponseCache cache = new NbpResponseCache(new NbpCacheProperties(100, Duration.ZERO, Duration.ZERO, Duration.ofMinutes(5)), schedule);
+
+    @BeforeEach
+    void setUp() {
+        NbpApiClient client = new NbpApiClient(httpClient, objectMapper, new NbpApiClientProperties(
+                "http://api.nbp.pl/api/exchangerates", Duration.ofSeconds(2), Duration.ofSeconds(5),
+                HttpClient.Version.HTTP_1_1, 1), new NbpResilience(new NbpResilienceProperties(1, Duration.ofMillis(1), 1,
+                0, 50, 100, 100, Duration.ofSeconds(30), 100)), ObservationRegistry.NOOP);
+        service = new ExchangeRateService(client, store, cache, snapshot, archive, schedule);
+    }
 
     @Nested
     class GetAverageExchangeRateByDateAndCurrency {
@@ -54,18 +125,53 @@ class ExchangeRateServiceTest {
             ExchangeRateNBPResponse exchangeRateNBPResponse = createExchangeRateNbpApiResponse(
                     currency, List.of(rateNbpApiResponse1));
 
-            when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(),
-                    ArgumentMatchers.<ParameterizedTypeReference<ExchangeRateNBPResponse>>any()))
-                    .thenReturn(ResponseEntity.ok(exchangeRateNBPResponse));
+            givenNbpApiResponse(exchangeRateNBPResponse);
 
             // When
-            AverageExchangeRateResponse response = service.getAverageExchangeRateByDateAndCurrency(currencyCode, date);
+            AverageExchangeRateResponse response = service.getAverageExchangeRateByDateAndCurrency(currencyCode, date).join();
 
             // Then
             assertThat(response.currencyCode()).isEqualTo(currency);
             assertThat(response.currencyName()).isEqualTo(currency.getDescription());
             assertThat(response.date()).isEqualTo(date);
             assertThat(response.averageExchangeRate()).isEqualTo(rateNbpApiResponse1.mid());
+            verify(store).saveRates(RateTable.A, currency, List.of(rateNbpApiResponse1));
+        }
+
+        @Test
+        void returnsStoredAverageExchangeRate_withoutCallingNbpApi_givenRateAlreadyStored() {
+            // Given
+            String currencyCode = "EUR";
+            Currency currency = Currency.valueOf(currencyCode);
+            LocalDate date = LocalDate.of(2023, 4, 26);
+            RateNBPResponse storedRate = createRateNbpApiResponse2(date);
+
+            when(store.findRate(RateTable.A, currency, date)).thenReturn(Optional.of(storedRate));
+
+            // When
+            AverageExchangeRateResponse response = service.getAverageExchangeRateByDateAndCurrency(currencyCode, date).join();
+
+            // Then
+            verifyNoInteractions(httpClient);
+            assertThat(response.currencyCode()).isEqualTo(currency);
+            assertThat(response.date()).isEqualTo(date);
+            assertThat(response.averageExchangeRate()).isEqualTo(storedRate.mid());
+        }
+
+        @Test
+        void returnsArchivedAverageExchangeRate_withoutCallingNbpApi_givenRateImportedIntoArchive() {
+            // Given
+            LocalDate date = LocalDate.of(2004, 3, 17);
+            RateNBPResponse archivedRate = createRateNbpApiResponse2(date);
+            when(archive.findRate(RateTable.A, Currency.EUR, date)).thenReturn(Optional.of(archivedRate));
+
+            // When
+            AverageExchangeRateResponse response = service.getAverageExchangeRateByDateAndCurrency("EUR", date).join();
+
+            // Then
+            verifyNoInteractions(httpClient, store);
+            assertThat(response.date()).isEqualTo(date);
+            assertThat(response.averageExchangeRate()).isEqualTo(archivedRate.mid());
         }
 
         @ParameterizedTest
@@ -81,19 +187,218 @@ class ExchangeRateServiceTest {
                     .hasMessage("Wrong currencyCode: " + currencyCode);
         }
 
+        @Test
+        void returnsAverageExchangeRateFromTableB_givenCurrencyQuotedWeekly_andLowerCaseCode() {
+            // Given
+            Currency currency = Currency.SAR;
+            LocalDate wednesday = LocalDate.of(2023, 4, 26);
+            RateNBPResponse rateNbpApiResponse1 = createRateNbpApiResponse1(wednesday);
+            givenNbpApiResponse(createExchangeRateNbpApiResponse(currency, List.of(rateNbpApiResponse1)));
+
+            // When
+            AverageExchangeRateResponse response = service.getAverageExchangeRateByDateAndCurrency("sar", wednesday).join();
+
+            // Then
+            assertThat(response.currencyCode()).isEqualTo(currency);
+            assertThat(response.averageExchangeRate()).isEqualTo(rateNbpApiResponse1.mid());
+            verify(store).saveRates(RateTable.B, currency, List.of(rateNbpApiResponse1));
+        }
+
+        @Test
+        void throwsNotFound_withoutCallingNbpApi_givenCurrencyQuotedWeekly_andDayWithoutTableB() {
+            // Given
+            LocalDate thursday = LocalDate.of(2023, 4, 27);
+
+            // When, Then
+            assertThatThrownBy(() -> service.getAverageExchangeRateByDateAndCurrency("SAR", thursday).join())
+                    .isExactlyInstanceOf(CompletionException.class)
+                    .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+            verifyNoInteractions(httpClient, store);
+        }
+
         @Test
         void throwsNoSuchElementException_givenNullResponseEntityBody() {
             // Given
             String currencyCode = "USD";
             LocalDate date = LocalDate.of(2023, 4, 24);
-            when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(),
-                    ArgumentMatchers.<ParameterizedTypeReference<ExchangeRateNBPResponse>>any()))
-                    .thenReturn(ResponseEntity.ok(null));
+            givenNbpApiResponse(null);
 
             // When, Then
-            assertThatThrownBy(() -> service.getAverageExchangeRateByDateAndCurrency(currencyCode, date))
-                    .isExactlyInstanceOf(NoSuchElementException.class)
-                    .hasMessage("Cannot get exchange rate response from received data.");
+            assertThatThrownBy(() -> service.getAverageExchangeRateByDateAndCurrency(currencyCode, date).join())
+                    .isExactlyInstanceOf(CompletionException.class)
+                    .hasRootCauseExactlyInstanceOf(NoSuchElementException.class)
+                    .hasRootCauseMessage("Cannot get exchange rate response from received data.");
+        }
+
+        @Test
+        void throwsNotFound_withoutCallingNbpApi_givenHoliday() {
+            // Given
+            String currencyCode = "USD";
+            LocalDate constitutionDay = LocalDate.of(2023, 5, 3);
+
+            // When, Then
+            assertThatThrownBy(() -> service.getAverageExchangeRateByDateAndCurrency(currencyCode, constitutionDay).join())
+                    .isExactlyInstanceOf(CompletionException.class)
+                    .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+            verifyNoInteractions(httpClient, store);
+        }
+
+        @Test
+        void returnsRateOfPreviousPublicationDay_givenPreviousResolution_andDateWithoutTable() {
+            // Given
+            String currencyCode = "EUR";
+            Currency currency = Currency.valueOf(currencyCode);
+            LocalDate sunday = LocalDate.of(2023, 4, 30);
+            LocalDate friday = LocalDate.of(2023, 4, 28);
+            RateNBPResponse storedRate = createRateNbpApiResponse2(friday);
+
+            when(store.findRate(RateTable.A, currency, friday)).thenReturn(Optional.of(storedRate));
+
+            // When
+            AverageExchangeRateResponse response = service.getAverageExchangeRateByDateAndCurrency(currencyCode, sunday,
+                    DateResolution.PREVIOUS).join();
+
+            // Then
+            verifyNoInteractions(httpClient);
+            assertThat(response.date()).isEqualTo(friday);
+            assertThat(response.averageExchangeRate()).isEqualTo(storedRate.mid());
+        }
+    }
+
+    @Nested
+    class GetAverageExchangeRatesByDatesAndCurrency {
+        @Test
+        void returnsAverageExchangeRates_fetchingOnlyMissingDates_inOneRangeQuery() {
+            // Given
+            String currencyCode = "USD";
+            Currency currency = Currency.valueOf(currencyCode);
+            LocalDate storedDate = LocalDate.of(2023, 4, 24);
+            LocalDate missingDate1 = LocalDate.of(2023, 4, 25);
+            LocalDate missingDate2 = LocalDate.of(2023, 4, 27);
+            RateNBPResponse storedRate = createRateNbpApiResponse1(storedDate);
+            RateNBPResponse fetchedRate1 = createRateNbpApiResponse2(missingDate1);
+            RateNBPResponse fetchedRate2 = createRateNbpApiResponse3(missingDate2);
+            RateNBPResponse unrequestedRate = createRateNbpApiResponse3(LocalDate.of(2023, 4, 26));
+
+            when(store.findRate(eq(RateTable.A), eq(currency), any())).thenReturn(Optional.empty());
+            when(store.findRate(RateTable.A, currency, storedDate)).thenReturn(Optional.of(storedRate));
+            givenNbpApiResponse(createExchangeRateNbpApiResponse(
+                    currency, List.of(fetchedRate1, unrequestedRate, fetchedRate2)));
+
+            // When
+            List<AverageExchangeRateResponse> responses = service.getAverageExchangeRatesByDatesAndCurrency(
+                    currencyCode, List.of(missingDate2, storedDate, missingDate1)).join();
+
+            // Then
+            assertThat(responses)
+                    .extracting(AverageExchangeRateResponse::date, AverageExchangeRateResponse::averageExchangeRate)
+                    .containsExactly(
+                            tuple(storedDate, storedRate.mid()),
+                            tuple(missingDate1, fetchedRate1.mid()),
+                            tuple(missingDate2, fetchedRate2.mid()));
+            verify(httpClient, times(1)).sendAsync(any(), ArgumentMatchers.<HttpResponse.BodyHandler<byte[]>>any());
+        }
+
+        @Test
+        void returnsEmptyList_givenNoRatesPublishedInRange() {
+            // Given
+            String currencyCode = "USD";
+            LocalDate monday = LocalDate.of(2023, 4, 24);
+            when(httpResponse.statusCode()).thenReturn(404);
+            when(httpResponse.body()).thenReturn(new byte[0]);
+            when(httpClient.sendAsync(any(), ArgumentMatchers.<HttpResponse.BodyHandler<byte[]>>any()))
+                    .thenReturn(CompletableFuture.completedFuture(httpResponse));
+
+            // When
+            List<AverageExchangeRateResponse> responses = service.getAverageExchangeRatesByDatesAndCurrency(
+                    currencyCode, List.of(monday)).join();
+
+            // Then
+            assertThat(responses).isEmpty();
+        }
+
+        @Test
+        void returnsEmptyList_withoutCallingNbpApi_givenOnlyDatesWithoutTables() {
+            // Given
+            String currencyCode = "USD";
+            LocalDate saturday = LocalDate.of(2023, 4, 22);
+            LocalDate labourDay = LocalDate.of(2023, 5, 1);
+
+            // When
+            List<AverageExchangeRateResponse> responses = service.getAverageExchangeRatesByDatesAndCurrency(
+                    currencyCode, List.of(saturday, labourDay)).join();
+
+            // Then
+            assertThat(responses).isEmpty();
+            verifyNoInteractions(httpClient, store);
+        }
+    }
+
+    @Nested
+    class GetAverageExchangeRateSeries {
+        @Test
+        void splitsRangeIntoNbpWindows_trimmedToNbpArchive() {
+            // Given
+            DateRange range = new DateRange(LocalDate.of(2001, 12, 1), LocalDate.of(2002, 12, 31));
+
+            // When
+            AverageExchangeRateSeries series = service.getAverageExchangeRateSeries("USD", range);
+
+            // Then
+            assertThat(series.windows()).hasSize(4);
+            assertThat(series.windows().get(0).from()).isEqualTo(LocalDate.of(2002, 1, 2));
+            assertThat(series.windows().get(3).to()).isEqualTo(LocalDate.of(2002, 12, 31));
+            verifyNoInteractions(httpClient);
+        }
+
+        @Test
+        void returnsSnapshotRates_withoutCallingNbpApi_givenWindowHeldInSnapshot() throws IOException {
+            // Given
+            LocalDate date = LocalDate.of(2023, 4, 26);
+            DateRange range = new DateRange(date, date);
+            RateNBPResponse rate = createRateNbpApiResponse1(date);
+            when(snapshot.findRates(RateTable.A, Currency.USD, range)).thenReturn(Optional.of(RateSeries.of(List.of(rate))));
+            List<AverageExchangeRateResponse> consumed = new ArrayList<>();
+
+            // When
+            service.getAverageExchangeRateSeries("USD", range).forEachWindow(1, consumed::addAll);
+
+            // Then
+            assertThat(consumed)
+                    .extracting(AverageExchangeRateResponse::date, AverageExchangeRateResponse::averageExchangeRate)
+                    .containsExactly(tuple(date, rate.mid()));
+            verifyNoInteractions(httpClient);
+        }
+
+        @Test
+        void returnsArchivedRates_withoutCallingNbpApi_givenWindowHeldInArchive() throws IOException {
+            // Given
+            LocalDate date = LocalDate.of(2009, 4, 24);
+            DateRange range = new DateRange(date, date);
+            RateNBPResponse rate = createRateNbpApiResponse1(date);
+            when(archive.findRates(RateTable.A, Currency.USD, range)).thenReturn(Optional.of(RateSeries.of(List.of(rate))));
+            List<AverageExchangeRateResponse> consumed = new ArrayList<>();
+
+            // When
+            service.getAverageExchangeRateSeries("USD", range).forEachWindow(1, consumed::addAll);
+
+            // Then
+            assertThat(consumed)
+                    .extracting(AverageExchangeRateResponse::date, AverageExchangeRateResponse::averageExchangeRate)
+                    .containsExactly(tuple(date, rate.mid()));
+            verifyNoInteractions(httpClient);
+        }
+
+        @Test
+        void returnsEmptySeries_givenRangeBeforeNbpArchive() {
+            // Given
+            DateRange range = new DateRange(LocalDate.of(1999, 1, 1), LocalDate.of(2001, 12, 31));
+
+            // When
+            AverageExchangeRateSeries series = service.getAverageExchangeRateSeries("USD", range);
+
+            // Then
+            assertThat(series.windows()).isEmpty();
         }
     }
 
@@ -112,22 +417,41 @@ class ExchangeRateServiceTest {
             ExchangeRateNBPResponse exchangeRateNBPResponse = createExchangeRateNbpApiResponse(
                     currency, List.of(rateResponse1, rateResponse2, rateResponse3));
 
-            when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(),
-                    ArgumentMatchers.<ParameterizedTypeReference<ExchangeRateNBPResponse>>any()))
-                    .thenReturn(ResponseEntity.ok(exchangeRateNBPResponse));
+            givenNbpApiResponse(exchangeRateNBPResponse);
 
             // When
-            MinMaxAverageValueResponse response = service.getMinMaxAverageValueForXDays(currencyCode, numOfQuotes);
+            MinMaxAverageValueResponse response = service.getMinMaxAverageValueForXDays(currencyCode, numOfQuotes).join();
 
             // Then
-            verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), isNull(),
-                    ArgumentMatchers.<ParameterizedTypeReference<ExchangeRateNBPResponse>>any());
+            verify(httpClient).sendAsync(any(), any());
             assertThat(response.currencyCode()).isEqualTo(currency);
             assertThat(response.currencyName()).isEqualTo(currency.getDescription());
             assertThat(response.minAvgValue()).isEqualTo(rateResponse1.mid());
             assertThat(response.maxAvgValue()).isEqualTo(rateResponse3.mid());
         }
 
+        @Test
+        void callsNbpApiOnce_givenRepeatedRequestForSameCurrency_andNumOfQuotes() {
+            // Given
+            String currencyCode = "EUR";
+            Currency currency = Currency.valueOf(currencyCode);
+            int numOfQuotes = 2;
+            ExchangeRateNBPResponse exchangeRateNBPResponse = createExchangeRateNbpApiResponse(currency, List.of(
+                    createRateNbpApiResponse1(LocalDate.of(2023, 3, 20)),
+                    createRateNbpApiResponse2(LocalDate.of(2023, 3, 21))));
+
+            givenNbpApiResponse(exchangeRateNBPResponse);
+
+            // When
+            MinMaxAverageValueResponse first = service.getMinMaxAverageValueForXDays(currencyCode, numOfQuotes).join();
+            MinMaxAverageValueResponse second = service.getMinMaxAverageValueForXDays(currencyCode, numOfQuotes).join();
+
+            // Then
+            verify(httpClient).sendAsync(any(), any());
+            assertThat(second).isEqualTo(first);
+            assertThat(cache.stats().hitCount()).isEqualTo(1);
+        }
+
         @ParameterizedTest
         @NullAndEmptySource
         @ValueSource(strings = "XYZ")
@@ -147,14 +471,13 @@ class ExchangeRateServiceTest {
             String currencyCode = "USD";
             int numOfQuotes = 10;
 
-            when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(),
-                    ArgumentMatchers.<ParameterizedTypeReference<ExchangeRateNBPResponse>>any()))
-                    .thenReturn(ResponseEntity.ok(null));
+            givenNbpApiResponse(null);
 
             // When, Then
-            assertThatThrownBy(() -> service.getMinMaxAverageValueForXDays(currencyCode, numOfQuotes))
-                    .isExactlyInstanceOf(NoSuchElementException.class)
-                    .hasMessage("Cannot get exchange rate response from received data.");
+            assertThatThrownBy(() -> service.getMinMaxAverageValueForXDays(currencyCode, numOfQuotes).join())
+                    .isExactlyInstanceOf(CompletionException.class)
+                    .hasRootCauseExactlyInstanceOf(NoSuchElementException.class)
+                    .hasRootCauseMessage("Cannot get exchange rate response from received data.");
         }
     }
 
@@ -174,22 +497,49 @@ class ExchangeRateServiceTest {
                     currency, List.of(rateResponse1, rateResponse2, rateResponse3));
             BigDecimal expectedDifferenceResult = rateResponse3.ask().subtract(rateResponse3.bid());
 
-            when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(),
-                    ArgumentMatchers.<ParameterizedTypeReference<ExchangeRateNBPResponse>>any()))
-                    .thenReturn(ResponseEntity.ok(exchangeRateNBPResponse));
+            givenNbpApiResponse(exchangeRateNBPResponse);
 
             // When
-            BidAskDifferenceResponse response = service.getMajorDifferenceBetweenBuyAndAskRate(currencyCode, numOfQuotes);
+            BidAskDifferenceResponse response = service.getMajorDifferenceBetweenBuyAndAskRate(currencyCode, numOfQuotes).join();
 
             // Then
-            verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), isNull(),
-                    ArgumentMatchers.<ParameterizedTypeReference<ExchangeRateNBPResponse>>any());
+            verify(httpClient).sendAsync(any(), any());
             assertThat(response.currencyCode()).isEqualTo(currency);
             assertThat(response.currencyName()).isEqualTo(currency.getDescription());
             assertThat(response.date()).isEqualTo(rateResponse3.effectiveDate());
             assertThat(response.majorDifference()).isEqualTo(expectedDifferenceResult);
         }
 
+        @Test
+        void returnsMajorDifferenceFromSnapshot_withoutCallingNbpApi_givenSnapshotHoldsLastQuotes() {
+            // Given
+            String currencyCode = "EUR";
+            Currency currency = Currency.valueOf(currencyCode);
+            int numOfQuotes = 2;
+            RateNBPResponse rateResponse1 = createRateNbpApiResponse1(LocalDate.of(2023, 3, 20));
+            RateNBPResponse rateResponse3 = createRateNbpApiResponse3(LocalDate.of(2023, 3, 21));
+
+            when(snapshot.findLastQuotes(RateTable.C, currency, numOfQuotes))
+                    .thenReturn(Optional.of(LastQuotes.of(RateSeries.of(List.of(rateResponse1, rateResponse3)))));
+
+            // When
+            BidAskDifferenceResponse response = service.getMajorDifferenceBetweenBuyAndAskRate(currencyCode, numOfQuotes).join();
+
+            // Then
+            verifyNoInteractions(httpClient);
+            assertThat(response.date()).isEqualTo(rateResponse3.effectiveDate());
+            assertThat(response.majorDifference()).isEqualTo(rateResponse3.ask().subtract(rateResponse3.bid()));
+        }
+
+        @Test
+        void throwsNotFound_withoutCallingNbpApi_givenCurrencyNotQuotedInTableC() {
+            // When, Then
+            assertThatThrownBy(() -> service.getMajorDifferenceBetweenBuyAndAskRate("THB", 10).join())
+                    .isExactlyInstanceOf(CompletionException.class)
+                    .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+            verifyNoInteractions(httpClient, snapshot);
+        }
+
         @ParameterizedTest
         @NullAndEmptySource
         @ValueSource(strings = "XYZ")
@@ -209,15 +559,95 @@ class ExchangeRateServiceTest {
             String currencyCode = "USD";
             int numOfQuotes = 10;
 
-            when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(),
-                    ArgumentMatchers.<ParameterizedTypeReference<ExchangeRateNBPResponse>>any()))
-                    .thenReturn(ResponseEntity.ok(null));
+            givenNbpApiResponse(null);
 
             // When, Then
-            assertThatThrownBy(() -> service.getMajorDifferenceBetweenBuyAndAskRate(currencyCode, numOfQuotes))
-                    .isExactlyInstanceOf(NoSuchElementException.class)
-                    .hasMessage("Cannot get exchange rate response from received data.");
+            assertThatThrownBy(() -> service.getMajorDifferenceBetweenBuyAndAskRate(currencyCode, numOfQuotes).join())
+                    .isExactlyInstanceOf(CompletionException.class)
+                    .hasRootCauseExactlyInstanceOf(NoSuchElementException.class)
+                    .hasRootCauseMessage("Cannot get exchange rate response from received data.");
+        }
+    }
+
+    @Nested
+    class GetStatisticsForXDays {
+        @Test
+        void returnsStatisticsOfBothTables_givenSnapshotHoldsLastQuotes() {
+            // Given
+            String currencyCode = "USD";
+            Currency currency = Currency.valueOf(currencyCode);
+            int numOfQuotes = 3;
+            RateNBPResponse rateResponse1 = createRateNbpApiResponse1(LocalDate.of(2023, 3, 20));
+            RateNBPResponse rateResponse2 = createRateNbpApiResponse2(LocalDate.of(2023, 3, 21));
+            RateNBPResponse rateResponse3 = createRateNbpApiResponse3(LocalDate.of(2023, 3, 22));
+            List<RateNBPResponse> rates = List.of(rateResponse1, rateResponse2, rateResponse3);
+            when(snapshot.findLastRates(RateTable.A, currency, numOfQuotes)).thenReturn(Optional.of(RateSeries.of(rates)));
+            when(snapshot.findLastRates(RateTable.C, currency, numOfQuotes)).thenReturn(Optional.of(RateSeries.of(rates)));
+
+            // When
+            RateStatisticsResponse response = service.getStatisticsForXDays(currencyCode, numOfQuotes).join();
+
+            // Then
+            verifyNoInteractions(httpClient);
+            assertThat(response.numOfQuotes()).isEqualTo(3);
+            assertThat(response.minAvgValue()).isEqualTo(new DatedValue(rateResponse1.effectiveDate(), rateResponse1.mid()));
+            assertThat(response.maxAvgValue()).isEqualTo(new DatedValue(rateResponse3.effectiveDate(), rateResponse3.mid()));
+            assertThat(response.meanAvgValue()).isEqualByComparingTo("1.2");
+            assertThat(response.medianAvgValue()).isEqualTo(rateResponse2.mid());
+            assertThat(response.majorDifference()).isEqualTo(new DatedValue(
+                    rateResponse3.effectiveDate(), rateResponse3.ask().subtract(rateResponse3.bid())));
+        }
+
+        @Test
+        void returnsStatisticsWithoutMajorDifference_givenCurrencyNotQuotedInTableC() {
+            // Given
+            String currencyCode = "THB";
+            Currency currency = Currency.valueOf(currencyCode);
+            int numOfQuotes = 1;
+            RateNBPResponse rateResponse = createRateNbpApiResponse1(LocalDate.of(2023, 3, 20));
+            when(snapshot.findLastRates(RateTable.A, currency, numOfQuotes)).thenReturn(Optional.of(RateSeries.of(List.of(rateResponse))));
+
+            // When
+            RateStatisticsResponse response = service.getStatisticsForXDays(currencyCode, numOfQuotes).join();
+
+            // Then
+            assertThat(response.numOfQuotes()).isEqualTo(1);
+            assertThat(response.standardDeviation()).isEqualByComparingTo("0");
+            assertThat(response.majorDifference()).isNull();
+            verifyNoInteractions(httpClient);
+        }
+
+        @Test
+        void returnsEffectiveDateOfLatestQuoteOfEachTable() {
+            // Given
+            String currencyCode = "USD";
+            Currency currency = Currency.valueOf(currencyCode);
+            int numOfQuotes = 2;
+            RateNBPResponse rateResponse1 = createRateNbpApiResponse1(LocalDate.of(2023, 3, 20));
+            RateNBPResponse rateResponse2 = createRateNbpApiResponse2(LocalDate.of(2023, 3, 21));
+            when(snapshot.findLastRates(RateTable.A, currency, numOfQuotes)).thenReturn(Optional.of(RateSeries.of(List.of(rateResponse1))));
+            when(snapshot.findLastRates(RateTable.C, currency, numOfQuotes))
+                    .thenReturn(Optional.of(RateSeries.of(List.of(rateResponse1, rateResponse2))));
+
+            // When
+            AsOf<RateStatisticsResponse> response = service.getStatisticsForXDaysAsOf(currencyCode, numOfQuotes).join();
+
+            // Then
+            assertThat(response.effectiveDates()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                    RateTable.A, LocalDate.of(2023, 3, 20), RateTable.C, LocalDate.of(2023, 3, 21)));
+            assertThat(response.value().numOfQuotes()).isEqualTo(1);
+        }
+    }
+
+    private void givenNbpApiResponse(ExchangeRateNBPResponse body) {
+        try {
+            when(httpResponse.statusCode()).thenReturn(200);
+            when(httpResponse.body()).thenReturn(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
         }
+        when(httpClient.sendAsync(any(), ArgumentMatchers.<HttpResponse.BodyHandler<byte[]>>any()))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
     }
 
     private ExchangeRateNBPResponse createExchangeRateNbpApiResponse(Currency currency, List<RateNBPResponse> rates) {
@@ -0,0 +1,130 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationCalendar;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationProperties;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveImportTest {
+
+    private static final Charset WINDOWS_1250 = Charset.forName("windows-1250");
+    private static final String TABLE_A_2023 = """
+            data;1THB;1USD;100HUF;nr tabeli;pełny numer tabeli
+            ;bat (Tajlandia);dolar amerykański;forint (Węgry);;
+            20230102;0,1273;4,3480;1,1678;1;001/A/NBP/2023
+            20230103;0,1274;4,4016;1,1702;2;002/A/NBP/2023
+            20230104;0,1270;4,3811;1,1650;3;003/A/NBP/2023
+            kod ISO;THB;USD;HUF;;
+            nazwa waluty;bat (Tajlandia);dolar amerykański;forint (Węgry);;
+            liczba jednostek;1;1;100;;
+            """;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    void importsRatesPerUnit_withTableNumbers_givenNbpCsvArchive() throws IOException {
+        // Given
+        Path file = write("archiwum_tab_a_2023.csv", TABLE_A_2023);
+
+        // When
+        int imported = archiveImport(archive()).importFiles(List.of(file));
+
+        // Then
+        assertThat(imported).isEqualTo(9);
+        assertThat(archive().findRate(RateTable.A, Currency.HUF, LocalDate.of(2023, 1, 3))).hasValue(
+                new RateNBPResponse("002/A/NBP/2023", LocalDate.of(2023, 1, 3), new BigDecimal("0.011702"), null, null));
+        assertThat(archive().findRate(RateTable.A, Currency.USD, LocalDate.of(2023, 1, 5))).isEmpty();
+    }
+
+    @Test
+    void returnsRatesInRange_onlyGivenQuoteOfEveryPublicationDay() throws IOException {
+        // Given
+        archiveImport(archive()).importFiles(List.of(write("archiwum_tab_a_2023.csv", TABLE_A_2023)));
+        ExchangeRateArchive archive = archive();
+
+        // When
+        RateSeries held = archive.findRates(RateTable.A, Currency.USD,
+                new DateRange(LocalDate.of(2022, 12, 31), LocalDate.of(2023, 1, 4))).orElseThrow();
+
+        // Then
+        assertThat(held.toRates()).extracting(RateNBPResponse::mid)
+                .containsExactly(new BigDecimal("4.3480"), new BigDecimal("4.4016"), new BigDecimal("4.3811"));
+        assertThat(archive.findRates(RateTable.A, Currency.USD, new DateRange(LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 5))))
+                .isEmpty();
+        assertThat(archive.findRates(RateTable.A, Currency.EUR, new DateRange(LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 4))))
+                .isEmpty();
+    }
+
+    @Test
+    void importsBuyAndSellRates_givenTableCArchive() throws IOException {
+        // Given
+        Path file = write("archiwum_tab_c_2023.csv", """
+                data;1USD;;1EUR;;nr tabeli;pełny numer tabeli
+                20230103;4,3580;4,4460;4,6420;4,7358;2;002/C/NBP/2023
+                """);
+
+        // When
+        archiveImport(archive()).importFiles(List.of(file));
+
+        // Then
+        assertThat(archive().findRate(RateTable.C, Currency.EUR, LocalDate.of(2023, 1, 3))).hasValue(
+                new RateNBPResponse("002/C/NBP/2023", LocalDate.of(2023, 1, 3), null, new BigDecimal("4.6420"), new BigDecimal("4.7358")));
+    }
+
+    @Test
+    void mergesImportedQuotes_replacingQuotesOfSameDay_givenJsonTables() throws IOException {
+        // Given
+        archiveImport(archive()).importFiles(List.of(write("archiwum_tab_a_2023.csv", TABLE_A_2023)));
+        Path json = write("tables.json", """
+                [{"table":"A","no":"003/A/NBP/2023","effectiveDate":"2023-01-04",
+                  "rates":[{"currency":"dolar amerykański","code":"USD","mid":4.3812}]},
+                 {"table":"A","no":"004/A/NBP/2023","effectiveDate":"2023-01-05",
+                  "rates":[{"currency":"dolar amerykański","code":"USD","mid":4.4}]}]
+                """);
+
+        // When
+        archiveImport(archive()).importFiles(List.of(json));
+
+        // Then
+        assertThat(archive().findRates(RateTable.A, Currency.USD, new DateRange(LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 5)))
+                .orElseThrow().toRates())
+                .extracting(RateNBPResponse::mid)
+                .containsExactly(new BigDecimal("4.3480"), new BigDecimal("4.4016"), new BigDecimal("4.3812"), new BigDecimal("4.4000"));
+    }
+
+    private ExchangeRateArchive archive() {
+        PublicationCalendar calendar = new PublicationCalendar(new PublicationProperties(ZoneId.of("Europe/Warsaw"), Map.of(), Set.of()));
+        return new ExchangeRateArchive(new ArchiveProperties(directory.resolve("archive")), calendar);
+    }
+
+    private ArchiveImport archiveImport(ExchangeRateArchive archive) {
+        return new ArchiveImport(archive, objectMapper);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content, name.endsWith(".json") ? Charset.forName("UTF-8") : WINDOWS_1250);
+    }
+}
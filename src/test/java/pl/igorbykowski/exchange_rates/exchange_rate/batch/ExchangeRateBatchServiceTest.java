@@ -0,0 +1,123 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.batch;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.exchange_rate.ExchangeRateService;
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.min_max.MinMaxAverageValueResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateBatchServiceTest {
+
+    @Mock
+    private ExchangeRateService service;
+
+    @InjectMocks
+    private ExchangeRateBatchService batchService;
+
+    @Nested
+    class GetAverageExchangeRates {
+        @Test
+        void returnsResultsInRequestOrder_groupingQueriesByCurrency() {
+            // Given
+            LocalDate date1 = LocalDate.of(2023, 4, 24);
+            LocalDate date2 = LocalDate.of(2023, 4, 25);
+            AverageExchangeRateResponse usd1 = createAverageResponse(Currency.USD, date1, "4.1");
+            AverageExchangeRateResponse usd2 = createAverageResponse(Currency.USD, date2, "4.2");
+            AverageExchangeRateResponse eur1 = createAverageResponse(Currency.EUR, date1, "4.6");
+            when(service.getAverageExchangeRatesByDatesAndCurrency("USD", new TreeSet<>(Set.of(date1, date2))))
+                    .thenReturn(CompletableFuture.completedFuture(List.of(usd1, usd2)));
+            when(service.getAverageExchangeRatesByDatesAndCurrency("EUR", new TreeSet<>(Set.of(date1))))
+                    .thenReturn(CompletableFuture.completedFuture(List.of(eur1)));
+
+            // When
+            BatchResponse<AverageExchangeRateResponse> response = batchService.getAverageExchangeRates(List.of(
+                    new AverageExchangeRateQuery("USD", date2),
+                    new AverageExchangeRateQuery("EUR", date1),
+                    new AverageExchangeRateQuery("USD", date1))).join();
+
+            // Then
+            assertThat(response.results()).containsExactly(usd2, eur1, usd1);
+            assertThat(response.errors()).isEmpty();
+            verify(service, times(2)).getAverageExchangeRatesByDatesAndCurrency(any(), any());
+        }
+
+        @Test
+        void reportsErrorsPerQuery_givenInvalidCurrencyAndUnpublishedDate() {
+            // Given
+            LocalDate date = LocalDate.of(2023, 4, 24);
+            LocalDate saturday = LocalDate.of(2023, 4, 22);
+            AverageExchangeRateResponse usd = createAverageResponse(Currency.USD, date, "4.1");
+            when(service.getAverageExchangeRatesByDatesAndCurrency("USD", new TreeSet<>(Set.of(date, saturday))))
+                    .thenReturn(CompletableFuture.completedFuture(List.of(usd)));
+            when(service.getAverageExchangeRatesByDatesAndCurrency("XYZ", new TreeSet<>(Set.of(date))))
+                    .thenThrow(new IllegalArgumentException("Wrong currencyCode: XYZ"));
+
+            // When
+            BatchResponse<AverageExchangeRateResponse> response = batchService.getAverageExchangeRates(List.of(
+                    new AverageExchangeRateQuery("USD", date),
+                    new AverageExchangeRateQuery("XYZ", date),
+                    new AverageExchangeRateQuery("USD", saturday))).join();
+
+            // Then
+            assertThat(response.results()).containsExactly(usd);
+            assertThat(response.errors()).containsExactly(
+                    new BatchQueryError("XYZ", date, "Wrong currencyCode: XYZ"),
+                    new BatchQueryError("USD", saturday, "No exchange rate published on this date"));
+        }
+    }
+
+    @Nested
+    class GetMinMaxAverageValues {
+        @Test
+        void returnsResultsForDistinctCurrencies_reportingFailedOnes() {
+            // Given
+            MinMaxAverageValueResponse usd = MinMaxAverageValueResponse.builder()
+                    .currencyCode(Currency.USD)
+                    .currencyName(Currency.USD.getDescription())
+                    .minAvgValue(new BigDecimal("4.1"))
+                    .maxAvgValue(new BigDecimal("4.3"))
+                    .build();
+            when(service.getMinMaxAverageValueForXDays("USD", 10))
+                    .thenReturn(CompletableFuture.completedFuture(usd));
+            when(service.getMinMaxAverageValueForXDays("EUR", 10))
+                    .thenReturn(CompletableFuture.failedFuture(
+                            HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null)));
+
+            // When
+            BatchResponse<MinMaxAverageValueResponse> response = batchService.getMinMaxAverageValues(
+                    new MultiCurrencyQuotesRequest(List.of("USD", "EUR", "USD"), 10)).join();
+
+            // Then
+            assertThat(response.results()).containsExactly(usd);
+            assertThat(response.errors()).containsExactly(new BatchQueryError("EUR", null, "Resource Not Found"));
+            verify(service, times(1)).getMinMaxAverageValueForXDays("USD", 10);
+        }
+    }
+
+    private static AverageExchangeRateResponse createAverageResponse(Currency currency, LocalDate date, String rate) {
+        return AverageExchangeRateResponse.builder()
+                .currencyCode(currency)
+                .currencyName(currency.getDescription())
+                .date(date)
+                .averageExchangeRate(new BigDecimal(rate))
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationCalendar;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationProperties;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NbpResponseCacheTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final String HISTORICAL_URL = "http://api.nbp.pl/api/exchangerates/rates/A/EUR/2023-04-28";
+    private static final String LAST_QUOTES_URL = "http://api.nbp.pl/api/exchangerates/rates/A/EUR/last/10";
+    private static final Duration UNTIL_NEXT_PUBLICATION = Duration.ofDays(2).plusHours(23).plusMinutes(15);
+    private static final LocalDate LATEST_PUBLICATION_DAY = LocalDate.of(2023, 4, 21);
+    private static final Duration LATE_PUBLICATION_RETRY = Duration.ofMinutes(5);
+    private static final ExchangeRateNBPResponse STALE_RESPONSE = createResponse(LATEST_PUBLICATION_DAY);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final NbpResponseCache cache = createCache(Duration.ZERO, Duration.ZERO);
+
+    @Test
+    void keepsHistoricalResponse_regardlessOfElapsedTime() {
+        // Given
+        cache.getImmutable(RateTable.A, HISTORICAL_URL, this::load);
+
+        // When
+        nanos.addAndGet(Duration.ofDays(365).toNanos());
+        cache.getImmutable(RateTable.A, HISTORICAL_URL, this::load);
+
+        // Then
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresLastQuotesResponse_atNextPublication() {
+        // Given
+        cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, this::load);
+
+        // When
+        nanos.addAndGet(Duration.ofDays(2).toNanos());
+        cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, this::load);
+        nanos.addAndGet(Duration.ofHours(23).plusMinutes(16).toNanos());
+        cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, this::load);
+
+        // Then
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void reloadsLastQuotesResponse_afterRetryInterval_givenLatePublication() {
+        // Given
+        cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL,
+                () -> CompletableFuture.completedFuture(createResponse(LATEST_PUBLICATION_DAY.minusDays(1))));
+
+        // When
+        nanos.addAndGet(LATE_PUBLICATION_RETRY.minusSeconds(1).toNanos());
+        cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, this::load);
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        ExchangeRateNBPResponse response = cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, this::load).join();
+        nanos.addAndGet(Duration.ofHours(1).toNanos());
+        cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, this::load);
+
+        // Then
+        assertThat(response.rates()).extracting(RateNBPResponse::effectiveDate).containsExactly(LATEST_PUBLICATION_DAY);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void servesStaleLastQuotesResponse_whileReloadingItInBackground() {
+        // Given
+        NbpResponseCache cache = createCache(Duration.ofMinutes(1), Duration.ZERO);
+        cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, () -> CompletableFuture.completedFuture(STALE_RESPONSE));
+        nanos.addAndGet(UNTIL_NEXT_PUBLICATION.plusSeconds(30).toNanos());
+
+        // When
+        ExchangeRateNBPResponse stale = cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, this::load).join();
+        ExchangeRateNBPResponse fresh = cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, this::load).join();
+
+        // Then
+        assertThat(stale).isSameAs(STALE_RESPONSE);
+        assertThat(fresh).isNotSameAs(STALE_RESPONSE);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void servesStaleLastQuotesResponse_givenNbpUnavailable() {
+        // Given
+        NbpResponseCache cache = createCache(Duration.ZERO, Duration.ofHours(24));
+        cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL, () -> CompletableFuture.completedFuture(STALE_RESPONSE));
+        nanos.addAndGet(UNTIL_NEXT_PUBLICATION.plusHours(1).toNanos());
+
+        // When
+        ExchangeRateNBPResponse response = cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL,
+                () -> CompletableFuture.failedFuture(new ResourceAccessException("Connection refused"))).join();
+
+        // Then
+        assertThat(response).isSameAs(STALE_RESPONSE);
+        assertThatThrownBy(() -> cache.getUntilNextPublication(RateTable.A, LAST_QUOTES_URL,
+                () -> CompletableFuture.failedFuture(HttpClientErrorException.create(HttpStatus.NOT_FOUND,
+                        "Not Found", null, null, null))).join())
+                .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+    }
+
+    private NbpResponseCache createCache(Duration staleWhileRevalidate, Duration staleIfError) {
+        return new NbpResponseCache(new NbpCacheProperties(100, staleWhileRevalidate, staleIfError, LATE_PUBLICATION_RETRY),
+                createScheduleAt(LocalDateTime.of(2023, 4, 21, 13, 0)), nanos::get);
+    }
+
+    private CompletableFuture<ExchangeRateNBPResponse> load() {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(createResponse(LATEST_PUBLICATION_DAY));
+    }
+
+    private static ExchangeRateNBPResponse createResponse(LocalDate effectiveDate) {
+        return new ExchangeRateNBPResponse(Currency.EUR,
+                List.of(new RateNBPResponse("001/A/NBP/2023", effectiveDate, new BigDecimal("4.5230"), null, null)));
+    }
+
+    private static PublicationSchedule createScheduleAt(LocalDateTime now) {
+        Clock clock = Clock.fixed(now.atZone(WARSAW).toInstant(), WARSAW);
+        PublicationProperties properties = new PublicationProperties(WARSAW,
+                Map.of(RateTable.A, LocalTime.of(12, 15), RateTable.C, LocalTime.of(8, 15)), Set.of());
+        return new PublicationSchedule(properties, new PublicationCalendar(properties), clock);
+    }
+}
@@ -0,0 +1,61 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class LeaseLeadershipTest {
+
+    private static final Instant NOW = Instant.parse("2023-04-26T10:20:00Z");
+
+    @Autowired
+    private IngestionLeaseRepository repository;
+
+    @Test
+    void letsOnlyOneReplicaLead_untilItsLeaseExpires() {
+        // Given
+        LeaseLeadership first = leadership("first", NOW);
+        LeaseLeadership second = leadership("second", NOW.plus(Duration.ofMinutes(5)));
+        LeaseLeadership secondLater = leadership("second", NOW.plus(Duration.ofMinutes(16)));
+
+        // When, Then
+        assertThat(first.tryLead(RateTable.A)).isTrue();
+        assertThat(first.tryLead(RateTable.A)).isTrue();
+        assertThat(second.tryLead(RateTable.A)).isFalse();
+        assertThat(second.tryLead(RateTable.C)).isTrue();
+        assertThat(secondLater.tryLead(RateTable.A)).isTrue();
+        assertThat(leadership("first", NOW.plus(Duration.ofMinutes(17))).tryLead(RateTable.A)).isFalse();
+    }
+
+    @Test
+    void sharesDateOfLastSavedTable_onlyFromLeader() {
+        // Given
+        LeaseLeadership leader = leadership("leader", NOW);
+        LeaseLeadership follower = leadership("follower", NOW);
+        leader.tryLead(RateTable.C);
+
+        // When
+        leader.ingested(RateTable.C, LocalDate.of(2023, 4, 26));
+        follower.ingested(RateTable.C, LocalDate.of(2023, 4, 27));
+        leader.ingested(RateTable.C, LocalDate.of(2023, 4, 25));
+
+        // Then
+        assertThat(follower.ingestedUpTo(RateTable.C)).hasValue(LocalDate.of(2023, 4, 26));
+        assertThat(follower.ingestedUpTo(RateTable.A)).isEmpty();
+    }
+
+    private LeaseLeadership leadership(String nodeId, Instant now) {
+        return new LeaseLeadership(repository, new ClusterProperties(true, nodeId, Duration.ofMinutes(15)),
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
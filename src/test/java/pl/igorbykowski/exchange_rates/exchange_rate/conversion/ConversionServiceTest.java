@@ -0,0 +1,155 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.conversion;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.HttpClientErrorException;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClient;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.TableRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.DateResolution;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationCalendar;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationProperties;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.ExchangeRateTableSnapshot;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.TableRates;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversionServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2023, 4, 21);
+    private static final String TABLE_URL = "http://api.nbp.pl/api/exchangerates/tables/A/2023-04-21/2023-04-21";
+
+    @Mock
+    private NbpApiClient client;
+
+    @Mock
+    private ExchangeRateTableSnapshot snapshot;
+
+    private ConversionService service;
+
+    @BeforeEach
+    void setUp() {
+        PublicationProperties properties = new PublicationProperties(ZoneId.of("Europe/Warsaw"),
+                Map.of(RateTable.A, LocalTime.of(12, 15), RateTable.C, LocalTime.of(8, 15)), Set.of());
+        Clock clock = Clock.fixed(Instant.parse("2023-04-24T12:00:00Z"), ZoneOffset.UTC);
+        PublicationSchedule schedule = new PublicationSchedule(properties, new PublicationCalendar(properties), clock);
+        service = new ConversionService(client, snapshot, schedule, new ConversionProperties(10));
+    }
+
+    @Nested
+    class Convert {
+        @Test
+        void returnsCrossRate_givenTableInSnapshot() {
+            // Given
+            when(snapshot.findTable(RateTable.A, DATE)).thenReturn(Optional.of(table()));
+
+            // When
+            ConversionResponse response = service.convert("EUR", "USD", DATE, new BigDecimal("100"), DateResolution.EXACT).join();
+
+            // Then
+            assertThat(response.rate()).isEqualByComparingTo("1.10276048");
+            assertThat(response.convertedAmount()).isEqualByComparingTo("110.276048");
+            assertThat(response.date()).isEqualTo(DATE);
+            verifyNoInteractions(client);
+        }
+
+        @Test
+        void usesRatesPerUnit_givenCurrencyQuotedPerHundredUnits() {
+            // Given
+            when(snapshot.findTable(RateTable.A, DATE)).thenReturn(Optional.of(table()));
+
+            // When
+            ConversionResponse toPln = service.convert("JPY", "PLN", DATE, new BigDecimal("1000"), DateResolution.EXACT).join();
+            ConversionResponse fromPln = service.convert("PLN", "JPY", DATE, BigDecimal.ONE, DateResolution.EXACT).join();
+
+            // Then
+            assertThat(toPln.convertedAmount()).isEqualByComparingTo("31.24");
+            assertThat(toPln.from()).isEqualTo("JPY");
+            assertThat(fromPln.rate()).isEqualByComparingTo("32.0102432778");
+        }
+
+        @Test
+        void fetchesWholeTableOnce_givenTableOutsideSnapshot() {
+            // Given
+            when(snapshot.findTable(RateTable.A, DATE)).thenReturn(Optional.empty());
+            when(client.tablesUrl(RateTable.A, new DateRange(DATE, DATE))).thenReturn(TABLE_URL);
+            when(client.getTables(TABLE_URL)).thenReturn(CompletableFuture.completedFuture(List.of(tableResponse())));
+
+            // When
+            service.convert("EUR", "USD", DATE, BigDecimal.ONE, DateResolution.EXACT).join();
+            ConversionResponse response = service.convert("GBP", "EUR", DATE, BigDecimal.ONE, DateResolution.EXACT).join();
+
+            // Then
+            assertThat(response.rate()).isEqualByComparingTo("1.1305711813");
+            verify(client, times(1)).getTables(any());
+        }
+
+        @Test
+        void resolvesPreviousPublicationDay_givenWeekend() {
+            // Given
+            when(snapshot.findTable(RateTable.A, DATE)).thenReturn(Optional.of(table()));
+
+            // When
+            ConversionResponse response = service.convert("EUR", "USD", LocalDate.of(2023, 4, 23), BigDecimal.ONE,
+                    DateResolution.PREVIOUS).join();
+
+            // Then
+            assertThat(response.date()).isEqualTo(DATE);
+        }
+
+        @Test
+        void failsWithoutCallingNbp_givenDayWithoutTable() {
+            // Given
+            LocalDate saturday = LocalDate.of(2023, 4, 22);
+
+            // When
+            CompletableFuture<ConversionResponse> response = service.convert("EUR", "USD", saturday, BigDecimal.ONE,
+                    DateResolution.EXACT);
+
+            // Then
+            assertThatThrownBy(response::join)
+                    .isExactlyInstanceOf(CompletionException.class)
+                    .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+            verifyNoInteractions(client, snapshot);
+        }
+
+        @Test
+        void throwsIllegalArgumentException_givenUnknownCurrency() {
+            assertThatThrownBy(() -> service.convert("EUR", "XYZ", DATE, BigDecimal.ONE, DateResolution.EXACT))
+                    .isExactlyInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Wrong currencyCode: XYZ");
+        }
+    }
+
+    private static TableRates table() {
+        return TableRates.of(tableResponse());
+    }
+
+    private static ExchangeRateTableNBPResponse tableResponse() {
+        return new ExchangeRateTableNBPResponse("A", "077/A/NBP/2023", DATE, List.of(
+                new TableRateNBPResponse("dolar amerykański", "USD", new BigDecimal("4.1913"), null, null),
+                new TableRateNBPResponse("euro", "EUR", new BigDecimal("4.6220"), null, null),
+                new TableRateNBPResponse("funt szterling", "GBP", new BigDecimal("5.2255"), null, null),
+                new TableRateNBPResponse("jen (Japonia)", "JPY", new BigDecimal("0.03124"), null, null)));
+    }
+}
@@ -0,0 +1,208 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.http_cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.AsOf;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationCalendar;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationProperties;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+
+import java.time.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCachingTest {
+
+    private final PublicationProperties properties = new PublicationProperties(ZoneId.of("Europe/Warsaw"),
+            Map.of(RateTable.A, LocalTime.of(12, 15), RateTable.B, LocalTime.of(12, 15), RateTable.C, LocalTime.of(8, 15)),
+            Set.of());
+
+    // Wednesday 2023-04-26, 10:15 in Warsaw: table C of the day is published, table A is due at 12:15
+    private final ResponseCaching caching = new ResponseCaching(new PublicationSchedule(properties,
+            new PublicationCalendar(properties), Clock.fixed(Instant.parse("2023-04-26T08:15:00Z"), ZoneOffset.UTC)));
+
+    private final AtomicInteger computed = new AtomicInteger();
+
+    @Test
+    void cachesForAYear_givenSeriesUpToDateBeforeLatestPublication() {
+        // When
+        CachePolicy policy = caching.upTo(RateTable.A, LocalDate.of(2023, 4, 24));
+
+        // Then
+        assertThat(policy.cacheControl().getHeaderValue()).isEqualTo("max-age=31536000, public, immutable");
+    }
+
+    @Test
+    void storesNoSeries_givenRangeReachingLatestPublication() {
+        // When
+        CachePolicy policy = caching.upTo(RateTable.A, LocalDate.of(2023, 4, 25));
+
+        // Then
+        assertThat(policy.cacheControl().getHeaderValue()).isEqualTo("no-store");
+        assertThat(policy.version()).isNull();
+    }
+
+    @Test
+    void expiresAtFirstNextPublication_givenQuotesOfLatestPublications() {
+        // When
+        CachePolicy policy = caching.asOf(Map.of(RateTable.A, LocalDate.of(2023, 4, 25), RateTable.C, LocalDate.of(2023, 4, 26)),
+                RateTable.A, RateTable.C);
+
+        // Then
+        assertThat(policy.cacheControl().getHeaderValue()).isEqualTo("max-age=7200, public");
+        assertThat(policy.version()).isEqualTo("A2023-04-25-C2023-04-26");
+    }
+
+    @Test
+    void mustRevalidate_givenQuotesOlderThanLatestPublication() {
+        // When
+        CachePolicy delayed = caching.asOf(Map.of(RateTable.C, LocalDate.of(2023, 4, 25)), RateTable.C);
+        CachePolicy missing = caching.asOf(Map.of(RateTable.A, LocalDate.of(2023, 4, 25)), RateTable.A, RateTable.C);
+
+        // Then
+        assertThat(delayed.cacheControl().getHeaderValue()).isEqualTo("max-age=0, public");
+        assertThat(delayed.version()).isEqualTo("C2023-04-25");
+        assertThat(missing.cacheControl().getHeaderValue()).isEqualTo("max-age=0, public");
+        assertThat(missing.version()).isEqualTo("A2023-04-25-C");
+    }
+
+    @Test
+    void answersNotModifiedWithoutComputingBody_givenMatchingIfNoneMatch() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0-stale\", W/\"2-json-published\"");
+
+        // When
+        ResponseEntity<String> response = caching.respond(new ServletWebRequest(request), caching.permanent(), this::compute).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"2-json-published\"");
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("max-age=31536000, public, immutable");
+        assertThat(computed).hasValue(0);
+    }
+
+    @Test
+    void answersNotModifiedAfterComputingBody_givenIfNoneMatchOfServedQuotes() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"2-json-C2023-04-26\"");
+
+        // When
+        ResponseEntity<String> response = caching.respond(new ServletWebRequest(request),
+                computeAsOf(RateTable.C, LocalDate.of(2023, 4, 26)), RateTable.C).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"2-json-C2023-04-26\"");
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("max-age=79200, public");
+    }
+
+    @Test
+    void returnsBody_givenIfNoneMatchOfTableServedBeforeDelayedPublication() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"2-json-C2023-04-25\"");
+
+        // When
+        ResponseEntity<String> response = caching.respond(new ServletWebRequest(request),
+                computeAsOf(RateTable.C, LocalDate.of(2023, 4, 26)), RateTable.C).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("rates");
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"2-json-C2023-04-26\"");
+    }
+
+    @Test
+    void namesServedTable_givenDateOfTableNotPublishedYet() {
+        // When
+        ResponseEntity<String> response = caching.respondUpTo(new ServletWebRequest(new MockHttpServletRequest()),
+                RateTable.A, LocalDate.of(2023, 4, 26), this::compute, rates -> LocalDate.of(2023, 4, 25)).join();
+
+        // Then
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"2-json-A2023-04-25\"");
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("max-age=7200, public");
+    }
+
+    @Test
+    void computesBody_givenWildcardIfNoneMatch() {
+        // Given
+        CachePolicy policy = caching.permanent();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+
+        // When
+        ResponseEntity<String> response = caching.respond(new ServletWebRequest(request), policy, this::compute).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(computed).hasValue(1);
+    }
+
+    @Test
+    void answersNotModified_givenWildcardIfNoneMatchAndComputedBody() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+
+        // When
+        ResponseEntity<String> response = caching.respond(new ServletWebRequest(request),
+                computeAsOf(RateTable.C, LocalDate.of(2023, 4, 26)), RateTable.C).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void returnsBodyWithValidator_givenStaleIfNoneMatch() {
+        // Given
+        CachePolicy policy = caching.permanent();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0-published\"");
+
+        // When
+        ResponseEntity<String> response = caching.respond(new ServletWebRequest(request), policy, this::compute).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("rates");
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"2-json-published\"");
+        assertThat(computed).hasValue(1);
+    }
+
+    @Test
+    void namesFormatInValidator_givenBinaryFormatAccepted() {
+        // Given
+        CachePolicy policy = caching.permanent();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.5");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"2-json-published\"");
+
+        // When
+        ResponseEntity<String> response = caching.respond(new ServletWebRequest(request), policy, this::compute).join();
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"2-cbor-published\"");
+        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+    }
+
+    private CompletableFuture<String> compute() {
+        computed.incrementAndGet();
+        return CompletableFuture.completedFuture("rates");
+    }
+
+    private CompletableFuture<AsOf<String>> computeAsOf(RateTable table, LocalDate effectiveDate) {
+        return compute().thenApply(rates -> new AsOf<>(rates, Map.of(table, effectiveDate)));
+    }
+}
@@ -0,0 +1,171 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NbpApiClientTest {
+
+    private static final String URL = "http://api.nbp.pl/api/exchangerates/rates/A/USD/2023-04-24";
+
+    @Mock
+    private HttpClient httpClient;
+
+    @Mock
+    private HttpResponse<byte[]> httpResponse;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NbpApiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        client = new NbpApiClient(httpClient, JsonMapper.builder().findAndAddModules().build(),
+                new NbpApiClientProperties("http://api.nbp.pl/api/exchangerates", Duration.ofSeconds(2),
+                        Duration.ofSeconds(5), HttpClient.Version.HTTP_1_1, 1), new NbpResilience(NbpResilienceTest.properties(1)), observationRegistry);
+    }
+
+    @Test
+    void formatsUrls_relativeToConfiguredBaseUrl() {
+        // When, Then
+        assertThat(client.exchangeRateUrl(RateTable.A, Currency.USD, LocalDate.of(2023, 4, 24))).isEqualTo(URL);
+        assertThat(client.lastExchangeRatesUrl(RateTable.C, Currency.EUR, 10))
+                .isEqualTo("http://api.nbp.pl/api/exchangerates/rates/C/EUR/last/10");
+        assertThat(client.tablesUrl(RateTable.A, new DateRange(LocalDate.of(2023, 1, 2), LocalDate.of(2023, 4, 3))))
+                .isEqualTo("http://api.nbp.pl/api/exchangerates/tables/A/2023-01-02/2023-04-03");
+    }
+
+    @Test
+    void returnsExchangeRates_givenSuccessfulResponse() {
+        // Given
+        givenResponse(200, """
+                {"table":"A","currency":"dolar amerykański","code":"USD",
+                 "rates":[{"no":"078/A/NBP/2023","effectiveDate":"2023-04-24","mid":4.1905}]}""");
+
+        // When
+        ExchangeRateNBPResponse response = client.getExchangeRates(URL).join();
+
+        // Then
+        assertThat(response.rates()).singleElement().satisfies(rate -> {
+            assertThat(rate.effectiveDate()).isEqualTo(LocalDate.of(2023, 4, 24));
+            assertThat(rate.mid()).isEqualTo(new BigDecimal("4.1905"));
+        });
+    }
+
+    @Test
+    void throwsHttpClientErrorException_givenNotFoundResponse() {
+        // Given
+        givenResponse(404, "404 NotFound - Not Found - Brak danych");
+
+        // When, Then
+        assertThatThrownBy(() -> client.getExchangeRates(URL).join())
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+    }
+
+    @Test
+    void throwsHttpServerErrorException_givenServerErrorResponse() {
+        // Given
+        givenResponse(503, "Service Unavailable");
+
+        // When, Then
+        assertThatThrownBy(() -> client.getExchangeRates(URL).join())
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
+    }
+
+    @Test
+    void throwsResourceAccessException_givenTimeout() {
+        // Given
+        when(httpClient.sendAsync(any(), ArgumentMatchers.<HttpResponse.BodyHandler<byte[]>>any()))
+                .thenReturn(CompletableFuture.failedFuture(new HttpTimeoutException("request timed out")));
+
+        // When, Then
+        assertThatThrownBy(() -> client.getExchangeRates(URL).join())
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(ResourceAccessException.class);
+    }
+
+    @Test
+    void recordsRequestTimer_taggedWithTableCurrencyAndStatus() {
+        // Given
+        givenResponse(200, """
+                {"table":"A","currency":"dolar amerykański","code":"USD",
+                 "rates":[{"no":"078/A/NBP/2023","effectiveDate":"2023-04-24","mid":4.1905}]}""");
+
+        // When
+        client.getExchangeRates(URL).join();
+
+        // Then
+        assertThat(meterRegistry.get(NbpApiClient.REQUEST_OBSERVATION)
+                .tags("query", "rate", "table", "A", "currency", "USD", "status", "200")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(NbpApiClient.PARSE_OBSERVATION).tag("query", "rate").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void recordsRequestTimer_taggedWithIoError_givenTimeout() {
+        // Given
+        when(httpClient.sendAsync(any(), ArgumentMatchers.<HttpResponse.BodyHandler<byte[]>>any()))
+                .thenReturn(CompletableFuture.failedFuture(new HttpTimeoutException("request timed out")));
+
+        // When
+        client.getExchangeRates(client.lastExchangeRatesUrl(RateTable.C, Currency.EUR, 10)).exceptionally(e -> null).join();
+
+        // Then
+        assertThat(meterRegistry.get(NbpApiClient.REQUEST_OBSERVATION)
+                .tags("query", "last", "table", "C", "currency", "EUR", "status", "IO_ERROR", "error", "HttpTimeoutException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void tagsTablesRequests_withoutCurrency() {
+        // When
+        NbpApiClient.RequestTags tags = NbpApiClient.RequestTags.of("/tables/A/2023-01-02/2023-04-03");
+
+        // Then
+        assertThat(tags).isEqualTo(new NbpApiClient.RequestTags("tables", "A", "none"));
+        assertThat(NbpApiClient.RequestTags.of("/rates/C/EUR/2023-01-02/2023-04-03"))
+                .isEqualTo(new NbpApiClient.RequestTags("range", "C", "EUR"));
+    }
+
+    private void givenResponse(int status, String body) {
+        when(httpResponse.statusCode()).thenReturn(status);
+        when(httpResponse.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        when(httpClient.sendAsync(any(), ArgumentMatchers.<HttpResponse.BodyHandler<byte[]>>any()))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
+    }
+}
@@ -0,0 +1,102 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NbpResilienceTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private NbpResilience resilience = new NbpResilience(properties(3));
+
+    @AfterEach
+    void tearDown() {
+        resilience.destroy();
+    }
+
+    @Test
+    void retriesCall_givenNbpUnavailable() {
+        // Given
+        CompletableFuture<String> result = resilience.call(() -> calls.incrementAndGet() < 3
+                ? CompletableFuture.failedFuture(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE,
+                "Service Unavailable", null, null, null))
+                : CompletableFuture.completedFuture("rates"));
+
+        // When, Then
+        assertThat(result.join()).isEqualTo("rates");
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void doesNotRetryCall_givenClientError() {
+        // Given
+        CompletableFuture<String> result = resilience.call(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.failedFuture(HttpClientErrorException.create(HttpStatus.NOT_FOUND,
+                    "Not Found", null, null, null));
+        });
+
+        // When, Then
+        assertThatThrownBy(result::join)
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void rejectsCallsWithoutCallingNbp_givenOpenCircuit() {
+        // Given
+        resilience.destroy();
+        resilience = new NbpResilience(properties(1));
+        for (int i = 0; i < 4; i++) resilience.call(this::unreachable).exceptionally(e -> null).join();
+
+        // When
+        CompletableFuture<String> result = resilience.call(this::unreachable);
+
+        // Then
+        assertThat(resilience.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(result::join)
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("rejected");
+        assertThat(calls).hasValue(4);
+    }
+
+    @Test
+    void rejectsCall_givenConcurrentCallsLimitReached() {
+        // Given
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        resilience.call(() -> pending);
+
+        // When
+        CompletableFuture<String> result = resilience.call(() -> CompletableFuture.completedFuture("rates"));
+
+        // Then
+        assertThatThrownBy(result::join)
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(ResourceAccessException.class);
+        pending.complete("rates");
+        assertThat(resilience.call(() -> CompletableFuture.completedFuture("rates")).join()).isEqualTo("rates");
+    }
+
+    static NbpResilienceProperties properties(int maxAttempts) {
+        return new NbpResilienceProperties(maxAttempts, Duration.ofMillis(1), 2, 0.5, 50, 4, 4, Duration.ofMinutes(1), 1);
+    }
+
+    private CompletableFuture<String> unreachable() {
+        calls.incrementAndGet();
+        return CompletableFuture.failedFuture(new ResourceAccessException("Connection refused"));
+    }
+}
@@ -0,0 +1,91 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final String URL = "http://api.nbp.pl/api/exchangerates/rates/A/EUR/2024-05-10";
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void sharesOneCall_givenConcurrentRequestsForSameKey() {
+        // Given
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<String> first = singleFlight.execute(URL, () -> call(upstream));
+        CompletableFuture<String> second = singleFlight.execute(URL, () -> call(upstream));
+        upstream.complete("rates");
+
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThat(first.join()).isEqualTo("rates");
+        assertThat(second.join()).isEqualTo("rates");
+        assertThat(singleFlight.inFlightCount()).isZero();
+        assertThat(singleFlight.sharedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sharesFailure_givenConcurrentRequestsForSameKey() {
+        // Given
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute(URL, () -> call(upstream));
+        CompletableFuture<String> second = singleFlight.execute(URL, () -> call(upstream));
+
+        // When
+        upstream.completeExceptionally(HttpClientErrorException.create(HttpStatus.NOT_FOUND,
+                "Not Found", null, null, null));
+
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThatThrownBy(first::join)
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+        assertThatThrownBy(second::join)
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(HttpClientErrorException.NotFound.class);
+    }
+
+    @Test
+    void startsNewCall_givenPreviousCallCompleted() {
+        // Given
+        singleFlight.execute(URL, () -> call(CompletableFuture.completedFuture("old rates"))).join();
+
+        // When
+        String result = singleFlight.execute(URL, () -> call(CompletableFuture.completedFuture("new rates"))).join();
+
+        // Then
+        assertThat(calls).hasValue(2);
+        assertThat(result).isEqualTo("new rates");
+    }
+
+    @Test
+    void doesNotShareCall_givenDifferentKeys() {
+        // Given
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        // When
+        singleFlight.execute(URL, () -> call(upstream));
+        singleFlight.execute(URL.replace("EUR", "USD"), () -> call(upstream));
+
+        // Then
+        assertThat(calls).hasValue(2);
+        assertThat(singleFlight.inFlightCount()).isEqualTo(2);
+    }
+
+    private CompletableFuture<String> call(CompletableFuture<String> upstream) {
+        calls.incrementAndGet();
+        return upstream;
+    }
+}
@@ -0,0 +1,78 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.publication;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicationCalendarTest {
+
+    private static final LocalDate CLOSED_DAY = LocalDate.of(2024, 7, 1);
+
+    private final PublicationCalendar calendar = new PublicationCalendar(
+            new PublicationProperties(ZoneId.of("Europe/Warsaw"), Map.of(), Set.of(CLOSED_DAY)));
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "2023-01-06", "2023-04-10", "2023-05-01", "2023-05-03", "2023-06-08", "2023-08-15", "2023-11-01",
+            "2023-12-25", "2023-12-26", "2024-04-01", "2024-05-30", "2025-12-24", "2018-11-12", "2024-07-01"
+    })
+    void hasNoTable_givenHolidayOnWeekday(LocalDate holiday) {
+        // When, Then
+        assertThat(calendar.isPublicationDay(holiday)).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2010-01-06", "2023-04-07", "2023-12-27", "2024-12-24", "2024-12-31"})
+    void hasTable_givenBusinessDay(LocalDate businessDay) {
+        // When, Then
+        assertThat(calendar.isPublicationDay(businessDay)).isTrue();
+    }
+
+    @Test
+    void resolvesToLastBusinessDay_givenEasterMonday() {
+        // When
+        LocalDate resolved = calendar.publicationDayOnOrBefore(LocalDate.of(2024, 4, 1));
+
+        // Then
+        assertThat(resolved).isEqualTo(LocalDate.of(2024, 3, 29));
+    }
+
+    @Test
+    void publishesTableBOnWednesday() {
+        // When, Then
+        assertThat(calendar.isPublicationDay(RateTable.B, LocalDate.of(2023, 4, 26))).isTrue();
+        assertThat(calendar.isPublicationDay(RateTable.B, LocalDate.of(2023, 4, 27))).isFalse();
+        assertThat(calendar.publicationDayOnOrBefore(RateTable.B, LocalDate.of(2023, 4, 30)))
+                .isEqualTo(LocalDate.of(2023, 4, 26));
+    }
+
+    @Test
+    void publishesTableBOnPreviousBusinessDay_givenHolidayOnWednesday() {
+        // Given
+        LocalDate allSaintsDay = LocalDate.of(2023, 11, 1);
+
+        // When, Then
+        assertThat(calendar.isPublicationDay(RateTable.B, allSaintsDay)).isFalse();
+        assertThat(calendar.previousPublicationDay(RateTable.B, LocalDate.of(2023, 11, 7)))
+                .isEqualTo(LocalDate.of(2023, 10, 31));
+        assertThat(calendar.nextPublicationDay(RateTable.B, LocalDate.of(2023, 10, 26)))
+                .isEqualTo(LocalDate.of(2023, 10, 31));
+    }
+
+    @Test
+    void skipsWeekendAndHolidays_givenChristmasEve2025() {
+        // When
+        LocalDate next = calendar.nextPublicationDay(LocalDate.of(2025, 12, 23));
+
+        // Then
+        assertThat(next).isEqualTo(LocalDate.of(2025, 12, 29));
+    }
+}
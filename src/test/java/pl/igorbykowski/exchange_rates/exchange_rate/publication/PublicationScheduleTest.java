@@ -0,0 +1,107 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.publication;
+
+import org.junit.jupiter.api.Test;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.time.*;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicationScheduleTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+
+    @Test
+    void returnsTodaysPublication_givenTimeBeforePublicationOnBusinessDay() {
+        // Given
+        PublicationSchedule schedule = createSchedule(LocalDateTime.of(2023, 4, 26, 10, 0));
+
+        // When
+        ZonedDateTime next = schedule.nextPublication(RateTable.A);
+
+        // Then
+        assertThat(next).isEqualTo(ZonedDateTime.of(2023, 4, 26, 12, 15, 0, 0, WARSAW));
+    }
+
+    @Test
+    void returnsNextDaysPublication_givenTimeAfterPublicationOnBusinessDay() {
+        // Given
+        PublicationSchedule schedule = createSchedule(LocalDateTime.of(2023, 4, 26, 10, 0));
+
+        // When
+        ZonedDateTime next = schedule.nextPublication(RateTable.C);
+
+        // Then
+        assertThat(next).isEqualTo(ZonedDateTime.of(2023, 4, 27, 8, 15, 0, 0, WARSAW));
+    }
+
+    @Test
+    void returnsMondayPublication_givenFridayAfterPublication() {
+        // Given
+        PublicationSchedule schedule = createSchedule(LocalDateTime.of(2023, 4, 21, 13, 0));
+
+        // When
+        Duration timeToNext = schedule.timeToNextPublication(RateTable.A);
+
+        // Then
+        assertThat(schedule.nextPublication(RateTable.A))
+                .isEqualTo(ZonedDateTime.of(2023, 4, 24, 12, 15, 0, 0, WARSAW));
+        assertThat(timeToNext).isEqualTo(Duration.ofDays(2).plusHours(23).plusMinutes(15));
+    }
+
+    @Test
+    void skipsHoliday_givenFridayBeforeLabourDay() {
+        // Given
+        PublicationSchedule schedule = createSchedule(LocalDateTime.of(2023, 4, 28, 13, 0));
+
+        // When
+        ZonedDateTime next = schedule.nextPublication(RateTable.A);
+
+        // Then
+        assertThat(next).isEqualTo(ZonedDateTime.of(2023, 5, 2, 12, 15, 0, 0, WARSAW));
+    }
+
+    @Test
+    void returnsDayBeforeHolidays_asLatestPublicationDay_givenMorningAfterHolidays() {
+        // Given
+        PublicationSchedule schedule = createSchedule(LocalDateTime.of(2023, 12, 27, 10, 0));
+
+        // When
+        LocalDate latest = schedule.latestPublicationDay(RateTable.A);
+
+        // Then
+        assertThat(latest).isEqualTo(LocalDate.of(2023, 12, 22));
+    }
+
+    @Test
+    void countsTodayAsPublished_givenTimeBeforePublication() {
+        // Given
+        PublicationSchedule schedule = createSchedule(LocalDateTime.of(2023, 4, 26, 10, 0));
+
+        // When, Then
+        assertThat(schedule.isPublished(RateTable.A, LocalDate.of(2023, 4, 26))).isTrue();
+        assertThat(schedule.isPublished(RateTable.A, LocalDate.of(2023, 4, 27))).isFalse();
+    }
+
+    @Test
+    void doesNotCountTomorrowAsPublished_givenTimeAfterTodaysPublication() {
+        // Given
+        PublicationSchedule schedule = createSchedule(LocalDateTime.of(2023, 4, 26, 13, 0));
+
+        // When
+        boolean published = schedule.isPublished(RateTable.A, LocalDate.of(2023, 4, 27));
+
+        // Then
+        assertThat(published).isFalse();
+        assertThat(schedule.isPublished(RateTable.A, LocalDate.of(2023, 4, 26))).isTrue();
+    }
+
+    static PublicationSchedule createSchedule(LocalDateTime now) {
+        Clock clock = Clock.fixed(now.atZone(WARSAW).toInstant(), WARSAW);
+        PublicationProperties properties = new PublicationProperties(WARSAW,
+                Map.of(RateTable.A, LocalTime.of(12, 15), RateTable.C, LocalTime.of(8, 15)), Set.of());
+        return new PublicationSchedule(properties, new PublicationCalendar(properties), clock);
+    }
+}
@@ -0,0 +1,97 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final ClientRateLimiter limiter = new ClientRateLimiter(properties(10, 2, 500), nanos::get);
+
+    @Test
+    void admitsBurstUpToCapacity_thenRejectsWithTimeUntilRefilled() {
+        // Given
+        for (int i = 0; i < 4; i++) assertThat(limiter.tryAcquire("ip:10.0.0.1", 2)).isZero();
+
+        // When
+        long waitNanos = limiter.tryAcquire("ip:10.0.0.1", 4);
+
+        // Then
+        assertThat(waitNanos).isEqualTo(Duration.ofSeconds(1).toNanos());
+        nanos.addAndGet(waitNanos);
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", 4)).isZero();
+    }
+
+    @Test
+    void chargesClientsSeparately() {
+        // Given
+        assertThat(limiter.tryAcquire("key:greedy", 10)).isZero();
+
+        // When
+        long waitNanos = limiter.tryAcquire("ip:10.0.0.1", 10);
+
+        // Then
+        assertThat(waitNanos).isZero();
+        assertThat(limiter.tryAcquire("key:greedy", 1)).isPositive();
+    }
+
+    @Test
+    void chargesWholeCost_givenCostAboveCapacity() {
+        // When
+        long first = limiter.tryAcquire("ip:10.0.0.1", 100);
+        long second = limiter.tryAcquire("ip:10.0.0.1", 100);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isEqualTo(Duration.ofSeconds(50).toNanos());
+    }
+
+    @Test
+    void rejectsCostAboveCapacity_givenBucketNotFull() {
+        // Given
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", 1)).isZero();
+
+        // When
+        long waitNanos = limiter.tryAcquire("ip:10.0.0.1", 100);
+
+        // Then
+        assertThat(waitNanos).isEqualTo(Duration.ofMillis(500).toNanos());
+    }
+
+    @Test
+    void remembersDebt_untilRefilled() {
+        // Given
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", 30)).isZero();
+        nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        // When
+        long waitNanos = limiter.tryAcquire("ip:10.0.0.1", 1);
+
+        // Then
+        assertThat(waitNanos).isEqualTo(Duration.ofMillis(5500).toNanos());
+        nanos.addAndGet(waitNanos);
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", 1)).isZero();
+    }
+
+    @Test
+    void doesNotRefillAboveCapacity() {
+        // Given
+        nanos.addAndGet(Duration.ofHours(1).toNanos());
+
+        // When
+        long first = limiter.tryAcquire("ip:10.0.0.1", 10);
+        long second = limiter.tryAcquire("ip:10.0.0.1", 1);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isPositive();
+    }
+
+    static RateLimitProperties properties(int capacity, double refillPerSecond, int maxConcurrentRequests) {
+        return new RateLimitProperties(true, "X-API-Key", capacity, refillPerSecond, 1000, 32, maxConcurrentRequests);
+    }
+}
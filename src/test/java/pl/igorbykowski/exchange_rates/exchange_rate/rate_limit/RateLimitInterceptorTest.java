@@ -0,0 +1,189 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.rate_limit;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.servlet.HandlerMapping;
+import pl.igorbykowski.exchange_rates.exchange_rate.batch.AverageExchangeRateBatchRequest;
+import pl.igorbykowski.exchange_rates.exchange_rate.batch.AverageExchangeRateQuery;
+import pl.igorbykowski.exchange_rates.exchange_rate.batch.MultiCurrencyQuotesRequest;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitInterceptorTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final RateLimitProperties properties = ClientRateLimiterTest.properties(10, 0.4, 1);
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor(new ClientRateLimiter(properties, nanos::get), properties);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Nested
+    class Cost {
+
+        @Test
+        void chargesOneToken_givenSingleQuoteRequest() {
+            assertThat(interceptor.cost(get("/average/USD/2023-04-26"))).isEqualTo(1);
+        }
+
+        @Test
+        void chargesByNumberOfQuotes_givenLastQuotesRequest() {
+            // Given
+            MockHttpServletRequest request = get("/min-max/USD/255");
+            request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("currencyCode", "USD", "numOfQuotes", "255"));
+
+            // When, Then
+            assertThat(interceptor.cost(request)).isEqualTo(8);
+        }
+
+        @Test
+        void chargesByNumberOfWindows_givenSeriesRequest() {
+            // Given
+            MockHttpServletRequest request = get("/series/USD");
+            request.setParameter("from", "2022-01-01");
+            request.setParameter("to", "2022-12-31");
+
+            // When, Then
+            assertThat(interceptor.cost(request)).isEqualTo(4);
+        }
+
+        @Test
+        void chargesNothingBeforeBodyIsRead_givenBatchRequest() {
+            assertThat(interceptor.cost(post("/average/batch"))).isZero();
+        }
+
+        @Test
+        void chargesPerQuery_givenAverageBatch() {
+            assertThat(averageBatch(20).cost(properties.quotesPerToken())).isEqualTo(20);
+        }
+
+        @Test
+        void chargesPerCurrencyAndNumberOfQuotes_givenMultiCurrencyBatch() {
+            assertThat(multiCurrencyBatch(100, 255).cost(properties.quotesPerToken())).isEqualTo(800);
+        }
+
+        @Test
+        void chargesNoMoreThanLargestValidBatch_givenOversizedBatch() {
+            assertThat(multiCurrencyBatch(1000, 100_000).cost(properties.quotesPerToken())).isEqualTo(800);
+        }
+
+        @Test
+        void chargesOneToken_givenInvalidNumberOfQuotes() {
+            // Given
+            MockHttpServletRequest request = get("/min-max/USD/many");
+            request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("numOfQuotes", "many"));
+
+            // When, Then
+            assertThat(interceptor.cost(request)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void identifiesClientByApiKey_givenKeySent() {
+        // Given
+        MockHttpServletRequest request = get("/average/USD/2023-04-26");
+        request.addHeader("X-API-Key", "partner");
+
+        // When, Then
+        assertThat(interceptor.client(request)).isEqualTo("key:partner");
+        assertThat(interceptor.client(get("/average/USD/2023-04-26"))).isEqualTo("ip:127.0.0.1");
+    }
+
+    @Test
+    void rejectsRequestWithRetryAfter_givenClientOutOfTokens() {
+        // Given
+        MockHttpServletRequest request = get("/average/USD/2023-04-26");
+        for (int i = 0; i < 10; i++) assertThat(interceptor.preHandle(request, response, null)).isTrue();
+
+        // When, Then
+        assertThatThrownBy(() -> interceptor.preHandle(request, response, null))
+                .isInstanceOfSatisfying(HttpClientErrorException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+                });
+    }
+
+    @Nested
+    class Batches {
+
+        @Test
+        void rejectsLargeBatch_givenBucketNotFull() {
+            // Given
+            assertThat(interceptor.preHandle(get("/average/USD/2023-04-26"), response, null)).isTrue();
+            MockHttpServletRequest request = post("/average/batch");
+            assertThat(interceptor.preHandle(request, response, null)).isTrue();
+
+            // When, Then
+            assertThatThrownBy(() -> interceptor.chargeBody(request, averageBatch(1000)))
+                    .isInstanceOfSatisfying(HttpClientErrorException.class, e -> {
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                        assertThat(e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+                    });
+        }
+
+        @Test
+        void rejectsFurtherRequests_untilLargeBatchIsRefilled() {
+            // Given
+            MockHttpServletRequest request = post("/min-max/batch");
+            assertThat(interceptor.preHandle(request, response, null)).isTrue();
+            interceptor.chargeBody(request, multiCurrencyBatch(100, 255));
+
+            // When, Then
+            assertThatThrownBy(() -> interceptor.preHandle(post("/min-max/batch"), response, null))
+                    .isInstanceOfSatisfying(HttpClientErrorException.class, e -> {
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                        assertThat(e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1975");
+                    });
+            assertThatThrownBy(() -> interceptor.preHandle(get("/average/USD/2023-04-26"), response, null))
+                    .isInstanceOf(HttpClientErrorException.class);
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(1975));
+            assertThat(interceptor.preHandle(post("/min-max/batch"), response, null)).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsRequestsAboveConcurrencyLimit_untilAdmittedOneCompletes() {
+        // Given
+        AdmissionControl admission = new AdmissionControl(properties);
+        MockHttpServletRequest first = get("/average/USD/2023-04-26");
+        assertThat(admission.preHandle(first, response, null)).isTrue();
+
+        // When, Then
+        assertThatThrownBy(() -> admission.preHandle(get("/average/EUR/2023-04-26"), response, null))
+                .isInstanceOfSatisfying(HttpClientErrorException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+                });
+        admission.afterCompletion(first, response, null, null);
+        admission.afterCompletion(first, response, null, null);
+        assertThat(admission.inFlight()).isZero();
+        assertThat(admission.preHandle(get("/average/EUR/2023-04-26"), response, null)).isTrue();
+    }
+
+    private static MockHttpServletRequest get(String path) {
+        return new MockHttpServletRequest("GET", "/api/v1/exchange-rates" + path);
+    }
+
+    private static MockHttpServletRequest post(String path) {
+        return new MockHttpServletRequest("POST", "/api/v1/exchange-rates" + path);
+    }
+
+    private static AverageExchangeRateBatchRequest averageBatch(int queries) {
+        return new AverageExchangeRateBatchRequest(Collections.nCopies(queries,
+                new AverageExchangeRateQuery("USD", LocalDate.of(2023, 4, 26))));
+    }
+
+    private static MultiCurrencyQuotesRequest multiCurrencyBatch(int currencies, int numOfQuotes) {
+        return new MultiCurrencyQuotesRequest(Collections.nCopies(currencies, "USD"), numOfQuotes);
+    }
+}
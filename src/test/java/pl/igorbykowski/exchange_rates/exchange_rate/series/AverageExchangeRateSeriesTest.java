@@ -0,0 +1,81 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.series;
+
+import org.junit.jupiter.api.Test;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.exchange_rate.average.AverageExchangeRateResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.DateRange;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AverageExchangeRateSeriesTest {
+
+    private final List<DateRange> windows = new DateRange(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 5)).split(1);
+    private final Map<DateRange, CompletableFuture<List<AverageExchangeRateResponse>>> requested = new LinkedHashMap<>();
+
+    @Test
+    void passesWindowsInDateOrder_givenWindowsCompletingOutOfOrder() throws IOException {
+        // Given
+        AverageExchangeRateSeries series = new AverageExchangeRateSeries(windows, this::load);
+        List<LocalDate> consumed = new ArrayList<>();
+
+        // When
+        series.forEachWindow(5, rates -> rates.forEach(rate -> consumed.add(rate.date())));
+
+        // Then
+        assertThat(consumed).containsExactly(
+                LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 3),
+                LocalDate.of(2023, 1, 4), LocalDate.of(2023, 1, 5));
+    }
+
+    @Test
+    void requestsAtMostMaxConcurrentWindowsAhead() throws IOException {
+        // Given
+        AverageExchangeRateSeries series = new AverageExchangeRateSeries(windows, this::load);
+        List<Integer> requestedWhenConsumed = new ArrayList<>();
+
+        // When
+        series.forEachWindow(2, rates -> requestedWhenConsumed.add(requested.size()));
+
+        // Then
+        assertThat(requestedWhenConsumed).containsExactly(2, 3, 4, 5, 5);
+    }
+
+    @Test
+    void stopsConsuming_givenFailedWindow() {
+        // Given
+        DateRange failing = windows.get(1);
+        AverageExchangeRateSeries series = new AverageExchangeRateSeries(windows, window -> window.equals(failing)
+                ? CompletableFuture.failedFuture(new IllegalStateException("NBP unavailable"))
+                : load(window));
+        List<LocalDate> consumed = new ArrayList<>();
+
+        // When, Then
+        assertThatThrownBy(() -> series.forEachWindow(1, rates -> rates.forEach(rate -> consumed.add(rate.date()))))
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("NBP unavailable");
+        assertThat(consumed).containsExactly(LocalDate.of(2023, 1, 1));
+    }
+
+    private CompletableFuture<List<AverageExchangeRateResponse>> load(DateRange window) {
+        CompletableFuture<List<AverageExchangeRateResponse>> future = CompletableFuture.completedFuture(List.of(
+                AverageExchangeRateResponse.builder()
+                        .currencyCode(Currency.USD)
+                        .currencyName(Currency.USD.getDescription())
+                        .date(window.from())
+                        .averageExchangeRate(BigDecimal.ONE)
+                        .build()));
+        requested.put(window, future);
+        return future;
+    }
+}
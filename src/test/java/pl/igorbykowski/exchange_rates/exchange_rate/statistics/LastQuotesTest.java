@@ -0,0 +1,88 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import org.junit.jupiter.api.Test;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LastQuotesTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2023, 4, 24);
+    private static final LocalDate DAY_2 = LocalDate.of(2023, 4, 25);
+    private static final LocalDate DAY_3 = LocalDate.of(2023, 4, 26);
+    private static final LocalDate DAY_4 = LocalDate.of(2023, 4, 27);
+
+    @Test
+    void returnsExtremesOfLastQuotes_givenAnyCount() {
+        // Given
+        RateSeries series = RateSeries.of(List.of(
+                midRate(DAY_1, "4.0"), midRate(DAY_2, "4.6"), midRate(DAY_3, "4.2"), midRate(DAY_4, "4.3")));
+
+        // When
+        LastQuotes lastQuotes = LastQuotes.of(series);
+
+        // Then
+        assertThat(lastQuotes.min(1)).contains(new DatedValue(DAY_4, new BigDecimal("4.3000")));
+        assertThat(lastQuotes.min(2)).contains(new DatedValue(DAY_3, new BigDecimal("4.2000")));
+        assertThat(lastQuotes.max(2)).contains(new DatedValue(DAY_4, new BigDecimal("4.3000")));
+        assertThat(lastQuotes.max(3)).contains(new DatedValue(DAY_2, new BigDecimal("4.6000")));
+        assertThat(lastQuotes.min(4)).contains(new DatedValue(DAY_1, new BigDecimal("4.0000")));
+        assertThat(lastQuotes.min(10)).contains(new DatedValue(DAY_1, new BigDecimal("4.0000")));
+        assertThat(lastQuotes.min(0)).isEmpty();
+        assertThat(lastQuotes.maxSpread(4)).isEmpty();
+    }
+
+    @Test
+    void returnsEarliestMaxSpread_givenEqualSpreads() {
+        // Given
+        RateSeries series = RateSeries.of(List.of(
+                buyAndAskRate(DAY_1, "4.1", "4.2"), buyAndAskRate(DAY_2, "4.0", "4.3"), buyAndAskRate(DAY_3, "4.1", "4.4")));
+
+        // When
+        LastQuotes lastQuotes = LastQuotes.of(series);
+
+        // Then
+        assertThat(lastQuotes.maxSpread(1)).contains(new DatedValue(DAY_3, new BigDecimal("0.3000")));
+        assertThat(lastQuotes.maxSpread(3)).contains(new DatedValue(DAY_2, new BigDecimal("0.3000")));
+        assertThat(lastQuotes.min(3)).isEmpty();
+    }
+
+    @Test
+    void matchesRateStatistics_givenRandomQuotes_andEveryCount() {
+        // Given
+        Random random = new Random(42);
+        List<RateNBPResponse> rates = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            BigDecimal bid = BigDecimal.valueOf(30_000 + random.nextInt(200), 4);
+            rates.add(new RateNBPResponse("no", DAY_1.plusDays(i), BigDecimal.valueOf(30_000 + random.nextInt(200), 4),
+                    bid, bid.add(BigDecimal.valueOf(random.nextInt(20), 4))));
+        }
+        RateSeries series = RateSeries.of(rates);
+
+        // When
+        LastQuotes lastQuotes = LastQuotes.of(series);
+
+        // Then
+        assertThat(lastQuotes.size()).isEqualTo(LastQuotes.MAX_COUNT);
+        for (int count = 1; count <= LastQuotes.MAX_COUNT; count++) {
+            RateStatistics statistics = RateStatistics.of(series.last(count));
+            assertThat(lastQuotes.min(count)).isEqualTo(statistics.min());
+            assertThat(lastQuotes.max(count)).isEqualTo(statistics.max());
+            assertThat(lastQuotes.maxSpread(count)).isEqualTo(statistics.maxSpread());
+        }
+    }
+
+    private static RateNBPResponse midRate(LocalDate date, String mid) {
+        return new RateNBPResponse("no", date, new BigDecimal(mid), null, null);
+    }
+
+    private static RateNBPResponse buyAndAskRate(LocalDate date, String bid, String ask) {
+        return new RateNBPResponse("no", date, null, new BigDecimal(bid), new BigDecimal(ask));
+    }
+}
@@ -0,0 +1,88 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import org.junit.jupiter.api.Test;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class RateSeriesTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2023, 4, 24);
+
+    private final List<RateNBPResponse> rates = List.of(
+            new RateNBPResponse("078/A/NBP/2023", MONDAY, new BigDecimal("4.1956"), null, null),
+            new RateNBPResponse("079/A/NBP/2023", MONDAY.plusDays(1), new BigDecimal("0.000286"), null, null),
+            new RateNBPResponse("080/A/NBP/2023", MONDAY.plusDays(2), new BigDecimal("4.20"), null, null),
+            new RateNBPResponse("081/A/NBP/2023", MONDAY.plusDays(4), new BigDecimal("12"), null, null));
+
+    @Test
+    void returnsEqualQuotes_givenQuotesConvertedToSeries() {
+        // When
+        RateSeries series = RateSeries.of(rates);
+
+        // Then
+        assertThat(series.size()).isEqualTo(4);
+        assertThat(series.mid(0)).isEqualTo(4_195_600L);
+        assertThat(series.bid(0)).isEqualTo(RateSeries.ABSENT);
+        assertThat(series.toRates()).extracting(RateNBPResponse::no, RateNBPResponse::effectiveDate)
+                .containsExactlyElementsOf(rates.stream().map(rate -> tuple(rate.no(), rate.effectiveDate())).toList());
+        assertThat(series.toRates()).extracting(RateNBPResponse::mid)
+                .containsExactly(new BigDecimal("4.1956"), new BigDecimal("0.000286"), new BigDecimal("4.2000"), new BigDecimal("12.0000"));
+    }
+
+    @Test
+    void sortsQuotesByDate_givenQuotesOutOfOrder() {
+        // When
+        RateSeries series = RateSeries.of(List.of(rates.get(2), rates.get(0), rates.get(1)));
+
+        // Then
+        assertThat(series.date(0)).isEqualTo(MONDAY);
+        assertThat(series.date(2)).isEqualTo(MONDAY.plusDays(2));
+    }
+
+    @Test
+    void findsQuotesByDate() {
+        // Given
+        RateSeries series = RateSeries.of(rates);
+
+        // When, Then
+        assertThat(series.indexOf(MONDAY.plusDays(2))).isEqualTo(2);
+        assertThat(series.indexOf(MONDAY.plusDays(3))).isNegative();
+    }
+
+    @Test
+    void returnsSlicesSharingTheSeries() {
+        // Given
+        RateSeries series = RateSeries.of(rates);
+
+        // When
+        RateSeries last = series.last(2);
+        RateSeries between = series.between(MONDAY.plusDays(1), MONDAY.plusDays(3));
+
+        // Then
+        assertThat(last.size()).isEqualTo(2);
+        assertThat(last.date(0)).isEqualTo(MONDAY.plusDays(2));
+        assertThat(last.indexOf(MONDAY.plusDays(4))).isEqualTo(1);
+        assertThat(last.indexOf(MONDAY)).isNegative();
+        assertThat(between.toRates()).extracting(RateNBPResponse::effectiveDate)
+                .containsExactly(MONDAY.plusDays(1), MONDAY.plusDays(2));
+        assertThat(series.last(10).size()).isEqualTo(4);
+        assertThat(series.between(MONDAY.minusDays(10), MONDAY.minusDays(1)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void convertsScaledRates_withPublishedScale() {
+        // When
+        List<BigDecimal> decimals = List.of(RateSeries.toDecimal(4_523_000L), RateSeries.toDecimal(286L),
+                RateSeries.toDecimal(RateSeries.toScaled(new BigDecimal("4.5230"))));
+
+        // Then
+        assertThat(decimals).extracting(BigDecimal::toPlainString).containsExactly("4.5230", "0.000286", "4.5230");
+        assertThat(RateSeries.toDecimal(RateSeries.ABSENT)).isNull();
+    }
+}
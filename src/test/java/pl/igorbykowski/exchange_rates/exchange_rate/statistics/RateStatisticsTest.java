@@ -0,0 +1,131 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.statistics;
+
+import org.junit.jupiter.api.Test;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RateStatisticsTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2023, 4, 24);
+    private static final LocalDate DAY_2 = LocalDate.of(2023, 4, 25);
+    private static final LocalDate DAY_3 = LocalDate.of(2023, 4, 26);
+    private static final LocalDate DAY_4 = LocalDate.of(2023, 4, 27);
+
+    @Test
+    void computesAverageRateStatistics_givenMidRates() {
+        // Given
+        List<RateNBPResponse> rates = List.of(
+                midRate(DAY_1, "4.2"), midRate(DAY_2, "4.0"), midRate(DAY_3, "4.6"), midRate(DAY_4, "4.0"));
+
+        // When
+        RateStatistics statistics = RateStatistics.of(rates);
+
+        // Then
+        assertThat(statistics.count()).isEqualTo(4);
+        assertThat(statistics.min()).contains(new DatedValue(DAY_2, new BigDecimal("4.0000")));
+        assertThat(statistics.max()).contains(new DatedValue(DAY_3, new BigDecimal("4.6000")));
+        assertThat(statistics.mean()).contains(new BigDecimal("4.200000"));
+        assertThat(statistics.median()).contains(new BigDecimal("4.1000"));
+        assertThat(statistics.standardDeviation()).contains(new BigDecimal("0.244949"));
+        assertThat(statistics.maxSpread()).isEmpty();
+    }
+
+    @Test
+    void returnsMiddleValueAsMedian_givenOddNumberOfRates() {
+        // Given
+        List<RateNBPResponse> rates = List.of(midRate(DAY_1, "4.3"), midRate(DAY_2, "4.1"), midRate(DAY_3, "4.2"));
+
+        // When
+        RateStatistics statistics = RateStatistics.of(rates);
+
+        // Then
+        assertThat(statistics.median()).contains(new BigDecimal("4.2000"));
+        assertThat(statistics.standardDeviation()).contains(new BigDecimal("0.081650"));
+    }
+
+    @Test
+    void returnsEarliestMaxSpread_givenBidAndAskRates() {
+        // Given
+        List<RateNBPResponse> rates = List.of(
+                buyAndAskRate(DAY_1, "4.10", "4.18"),
+                buyAndAskRate(DAY_2, "4.12", "4.21"),
+                buyAndAskRate(DAY_3, "4.15", "4.24"));
+
+        // When
+        RateStatistics statistics = RateStatistics.of(rates);
+
+        // Then
+        assertThat(statistics.maxSpread()).contains(new DatedValue(DAY_2, new BigDecimal("0.0900")));
+        assertThat(statistics.count()).isZero();
+        assertThat(statistics.mean()).isEmpty();
+        assertThat(statistics.median()).isEmpty();
+    }
+
+    @Test
+    void returnsNoStatistics_givenNoRates() {
+        // When
+        RateStatistics statistics = RateStatistics.of(List.of());
+
+        // Then
+        assertThat(statistics.count()).isZero();
+        assertThat(statistics.min()).isEmpty();
+        assertThat(statistics.max()).isEmpty();
+        assertThat(statistics.standardDeviation()).isEmpty();
+        assertThat(statistics.maxSpread()).isEmpty();
+    }
+
+    @Test
+    void matchesBigDecimalComputation_givenRandomQuotes() {
+        // Given
+        Random random = new Random(42);
+        List<RateNBPResponse> rates = new ArrayList<>();
+        for (int i = 0; i < 255; i++) {
+            BigDecimal bid = BigDecimal.valueOf(30_000 + random.nextInt(20_000), 4);
+            rates.add(new RateNBPResponse("no", DAY_1.plusDays(i), BigDecimal.valueOf(30_000 + random.nextInt(20_000), 4),
+                    bid, bid.add(BigDecimal.valueOf(random.nextInt(1_000), 4))));
+        }
+        List<BigDecimal> mids = rates.stream().map(RateNBPResponse::mid).toList();
+        BigDecimal n = BigDecimal.valueOf(mids.size());
+        BigDecimal mean = mids.stream().reduce(BigDecimal.ZERO, BigDecimal::add).divide(n, MathContext.DECIMAL64);
+        BigDecimal variance = mids.stream()
+                .map(mid -> mid.subtract(mean).pow(2))
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .divide(n, MathContext.DECIMAL64);
+        List<BigDecimal> sorted = mids.stream().sorted().toList();
+
+        // When
+        RateStatistics statistics = RateStatistics.of(rates);
+
+        // Then
+        assertThat(statistics.min().orElseThrow().value()).isEqualByComparingTo(Collections.min(mids));
+        assertThat(statistics.max().orElseThrow().value()).isEqualByComparingTo(Collections.max(mids));
+        assertThat(statistics.mean().orElseThrow())
+                .isEqualByComparingTo(mean.setScale(RateStatistics.SCALE, RoundingMode.HALF_EVEN));
+        assertThat(statistics.median().orElseThrow()).isEqualByComparingTo(sorted.get(127));
+        assertThat(statistics.standardDeviation().orElseThrow())
+                .isCloseTo(variance.sqrt(MathContext.DECIMAL64), within(new BigDecimal("0.000001")));
+        assertThat(statistics.maxSpread().orElseThrow().value()).isEqualByComparingTo(rates.stream()
+                .map(rate -> rate.ask().subtract(rate.bid()))
+                .max(BigDecimal::compareTo)
+                .orElseThrow());
+    }
+
+    private static RateNBPResponse midRate(LocalDate date, String mid) {
+        return new RateNBPResponse("no", date, new BigDecimal(mid), null, null);
+    }
+
+    private static RateNBPResponse buyAndAskRate(LocalDate date, String bid, String ask) {
+        return new RateNBPResponse("no", date, null, new BigDecimal(bid), new BigDecimal(ask));
+    }
+}
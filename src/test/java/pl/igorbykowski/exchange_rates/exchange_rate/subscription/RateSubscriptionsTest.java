@@ -0,0 +1,57 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.subscription;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.server.ResponseStatusException;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateSubscriptionsTest {
+
+    private final RateSubscriptions subscriptions = new RateSubscriptions(new ObjectMapper(),
+            new SubscriptionProperties(10, Duration.ofSeconds(30), Duration.ofHours(1), 64, 2), new MockEnvironment());
+
+    @AfterEach
+    void tearDown() {
+        subscriptions.destroy();
+    }
+
+    @Test
+    void admitsNoMoreThanMaxSubscribers_givenConcurrentSubscriptions() throws Exception {
+        // Given
+        ExecutorService clients = Executors.newFixedThreadPool(50);
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<Boolean> subscribe = () -> {
+            start.await();
+            try {
+                subscriptions.subscribe(Set.of(Currency.USD));
+                return true;
+            } catch (ResponseStatusException e) {
+                return false;
+            }
+        };
+
+        // When
+        List<Future<Boolean>> results = IntStream.range(0, 50).mapToObj(i -> clients.submit(subscribe)).toList();
+        start.countDown();
+        long admitted = 0;
+        for (Future<Boolean> result : results) if (result.get()) admitted++;
+        clients.shutdown();
+
+        // Then
+        assertThat(admitted).isEqualTo(10);
+    }
+}
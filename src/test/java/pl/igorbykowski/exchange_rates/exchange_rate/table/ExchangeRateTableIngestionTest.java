@@ -0,0 +1,193 @@
+package pl.igorbykowski.exchange_rates.exchange_rate.table;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.client.HttpClientErrorException;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.cluster.IngestionLeadership;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_client.NbpApiClient;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.RateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.TableRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationCalendar;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationProperties;
+import pl.igorbykowski.exchange_rates.exchange_rate.publication.PublicationSchedule;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.DatedValue;
+import pl.igorbykowski.exchange_rates.exchange_rate.statistics.RateSeries;
+import pl.igorbykowski.exchange_rates.exchange_rate.store.ExchangeRateStore;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateTableIngestionTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+
+    @Mock
+    private NbpApiClient client;
+
+    @Mock
+    private ExchangeRateStore store;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private IngestionLeadership leadership;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    private ExchangeRateTableSnapshot snapshot;
+    private ExchangeRateTableIngestion ingestion;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(LocalDateTime.of(2023, 4, 26, 13, 0).atZone(WARSAW).toInstant(), WARSAW);
+        PublicationProperties properties = new PublicationProperties(WARSAW,
+                Map.of(RateTable.A, LocalTime.of(12, 15), RateTable.C, LocalTime.of(8, 15)), Set.of());
+        PublicationSchedule schedule = new PublicationSchedule(properties, new PublicationCalendar(properties), clock);
+        snapshot = new ExchangeRateTableSnapshot(schedule);
+        ingestion = new ExchangeRateTableIngestion(client, snapshot, store, schedule,
+                new IngestionProperties(true, 3, Duration.ofMinutes(5)), taskScheduler, leadership, events, clock);
+    }
+
+    @Test
+    void splitsDownloadedTablesPerCurrency_andServesLastQuotesFromSnapshot() {
+        // Given
+        ExchangeRateTableNBPResponse tuesday = createTable("079/A/NBP/2023", LocalDate.of(2023, 4, 25), "4.1905", "4.5901");
+        ExchangeRateTableNBPResponse wednesday = createTable("080/A/NBP/2023", LocalDate.of(2023, 4, 26), "4.2017", "4.6002");
+        String url = "http://api.nbp.pl/api/exchangerates/tables/A/2023-04-24/2023-04-26";
+        when(client.tablesUrl(RateTable.A, new DateRange(LocalDate.of(2023, 4, 24), LocalDate.of(2023, 4, 26))))
+                .thenReturn(url);
+        when(client.getTables(url)).thenReturn(CompletableFuture.completedFuture(List.of(tuesday, wednesday)));
+        when(leadership.tryLead(RateTable.A)).thenReturn(true);
+
+        // When
+        ingestion.ingest(RateTable.A);
+
+        // Then
+        assertThat(snapshot.isCurrent(RateTable.A)).isTrue();
+        assertThat(snapshot.findLastRates(RateTable.A, Currency.USD, 2)).hasValueSatisfying(rates ->
+                assertThat(rates.toRates()).extracting(RateNBPResponse::mid)
+                        .containsExactly(new BigDecimal("4.1905"), new BigDecimal("4.2017")));
+        assertThat(snapshot.findRate(RateTable.A, Currency.EUR, LocalDate.of(2023, 4, 25)))
+                .map(RateNBPResponse::mid)
+                .hasValue(new BigDecimal("4.5901"));
+        assertThat(snapshot.findLastRates(RateTable.A, Currency.EUR, 3)).isEmpty();
+        assertThat(snapshot.findLastQuotes(RateTable.A, Currency.EUR, 2)).hasValueSatisfying(lastQuotes ->
+                assertThat(lastQuotes.max(1)).hasValue(new DatedValue(LocalDate.of(2023, 4, 26), new BigDecimal("4.6002"))));
+        assertThat(snapshot.findTable(RateTable.A, LocalDate.of(2023, 4, 26))).hasValueSatisfying(table -> {
+            assertThat(table.mid(Currency.USD)).isEqualTo(RateSeries.toScaled(new BigDecimal("4.2017")));
+            assertThat(table.mid(Currency.EUR)).isEqualTo(RateSeries.toScaled(new BigDecimal("4.6002")));
+            assertThat(table.mid(Currency.GBP)).isEqualTo(RateSeries.ABSENT);
+        });
+        assertThat(snapshot.findTable(RateTable.A, LocalDate.of(2023, 4, 24))).isEmpty();
+        verify(store).saveRates(eq(RateTable.A), eq(Currency.USD), ArgumentMatchers.argThat(rates -> rates.size() == 2));
+        verify(events).publishEvent(new TableIngestedEvent(RateTable.A, wednesday));
+        verify(leadership).ingested(RateTable.A, LocalDate.of(2023, 4, 26));
+    }
+
+    @Test
+    void publishesNoEvent_givenNoTablePublishedSinceLastIngestion() {
+        // Given
+        String url = "http://api.nbp.pl/api/exchangerates/tables/C/2023-04-24/2023-04-26";
+        when(client.tablesUrl(RateTable.C, new DateRange(LocalDate.of(2023, 4, 24), LocalDate.of(2023, 4, 26))))
+                .thenReturn(url);
+        when(client.getTables(url)).thenReturn(CompletableFuture.failedFuture(
+                HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null)));
+        when(leadership.tryLead(RateTable.C)).thenReturn(true);
+
+        // When
+        ingestion.ingest(RateTable.C);
+
+        // Then
+        assertThat(snapshot.isCurrent(RateTable.C)).isFalse();
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void readsTablesSavedByLeader_withoutCallingNbp_givenAnotherReplicaLeads() {
+        // Given
+        when(leadership.tryLead(RateTable.A)).thenReturn(false);
+        when(leadership.ingestedUpTo(RateTable.A)).thenReturn(Optional.of(LocalDate.of(2023, 4, 25)));
+        when(store.findRates(RateTable.A, new DateRange(LocalDate.of(2023, 4, 24), LocalDate.of(2023, 4, 25))))
+                .thenReturn(Map.of(Currency.USD, List.of(
+                        new RateNBPResponse("078/A/NBP/2023", LocalDate.of(2023, 4, 24), new BigDecimal("4.1956"), null, null),
+                        new RateNBPResponse("079/A/NBP/2023", LocalDate.of(2023, 4, 25), new BigDecimal("4.1905"), null, null))));
+
+        // When
+        ingestion.ingest(RateTable.A);
+
+        // Then
+        assertThat(snapshot.latestEffectiveDate(RateTable.A)).hasValue(LocalDate.of(2023, 4, 25));
+        assertThat(snapshot.findRate(RateTable.A, Currency.USD, LocalDate.of(2023, 4, 24)))
+                .map(RateNBPResponse::mid)
+                .hasValue(new BigDecimal("4.1956"));
+        verify(events).publishEvent(new TableIngestedEvent(RateTable.A, new ExchangeRateTableNBPResponse("A",
+                "079/A/NBP/2023", LocalDate.of(2023, 4, 25), List.of(new TableRateNBPResponse(
+                Currency.USD.getDescription(), "USD", new BigDecimal("4.1905"), null, null)))));
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void readsNothing_givenLeaderHasNotSavedNewTablesYet() {
+        // Given
+        when(leadership.tryLead(RateTable.A)).thenReturn(false);
+        when(leadership.ingestedUpTo(RateTable.A)).thenReturn(Optional.empty());
+
+        // When
+        ingestion.ingest(RateTable.A);
+
+        // Then
+        assertThat(snapshot.isCurrent(RateTable.A)).isFalse();
+        verifyNoInteractions(client, store, events);
+    }
+
+    @Test
+    void schedulesNextIngestion_givenUnexpectedFailure() {
+        // Given
+        Instant retry = LocalDateTime.of(2023, 4, 26, 13, 5).atZone(WARSAW).toInstant();
+        when(leadership.tryLead(any())).thenReturn(true);
+        when(client.tablesUrl(any(), any())).thenThrow(new IllegalStateException("Unexpected"));
+        ArgumentCaptor<Runnable> nextIngestion = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        ingestion.ingestAtStartup();
+
+        // Then
+        verify(taskScheduler, times(RateTable.values().length)).schedule(nextIngestion.capture(), eq(retry));
+        nextIngestion.getValue().run();
+        verify(taskScheduler, times(RateTable.values().length + 1)).schedule(any(Runnable.class), eq(retry));
+    }
+
+    private ExchangeRateTableNBPResponse createTable(String no, LocalDate effectiveDate, String usdMid, String eurMid) {
+        return new ExchangeRateTableNBPResponse("A", no, effectiveDate, List.of(
+                new TableRateNBPResponse("dolar amerykański", "USD", new BigDecimal(usdMid), null, null),
+                new TableRateNBPResponse("euro", "EUR", new BigDecimal(eurMid), null, null),
+                new TableRateNBPResponse("rubel rosyjski", "RUB", new BigDecimal("0.0501"), null, null)));
+    }
+}
@@ -0,0 +1,374 @@
+package pl.igorbykowski.exchange_rates.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.ExchangeRateTableNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.nbp_api_response.TableRateNBPResponse;
+import pl.igorbykowski.exchange_rates.exchange_rate.table.TableIngestedEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class ExchangeRateApiEndToEndTest {
+
+    private static final NbpSimulator SIMULATOR = startSimulator();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void nbpApiProperties(DynamicPropertyRegistry registry) {
+        registry.add("nbp.api.base-url", SIMULATOR::baseUrl);
+    }
+
+    @AfterAll
+    static void stopSimulator() {
+        SIMULATOR.close();
+    }
+
+    @Test
+    void returnsAverageExchangeRate_callingNbpOnlyOnce_givenRepeatedRequests() {
+        // Given
+        LocalDate date = LocalDate.of(2023, 4, 26);
+
+        // When
+        ResponseEntity<JsonNode> first = restTemplate.getForEntity("/api/v1/exchange-rates/average/USD/2023-04-26", JsonNode.class);
+        ResponseEntity<JsonNode> second = restTemplate.getForEntity("/api/v1/exchange-rates/average/USD/2023-04-26", JsonNode.class);
+
+        // Then
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody().get("averageExchangeRate").decimalValue())
+                .isEqualByComparingTo(SIMULATOR.mid(Currency.USD, date));
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        assertThat(SIMULATOR.requestCount("/rates/A/USD/2023-04-26")).isEqualTo(1);
+    }
+
+    @Test
+    void answersNotModifiedWithoutCallingNbp_givenCachedHistoricalRate() {
+        // Given
+        ResponseEntity<JsonNode> first = restTemplate.getForEntity("/api/v1/exchange-rates/average/NOK/2023-04-20", JsonNode.class);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+
+        // When
+        ResponseEntity<String> second = restTemplate.exchange("/api/v1/exchange-rates/average/NOK/2023-04-20",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        // Then
+        assertThat(first.getHeaders().getCacheControl()).contains("immutable");
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getBody()).isNull();
+        assertThat(SIMULATOR.requestCount("/rates/A/NOK/2023-04-20")).isEqualTo(1);
+    }
+
+    @Test
+    void returnsNotFound_givenDateWithoutPublishedTable() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/v1/exchange-rates/average/EUR/2023-04-29", String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(SIMULATOR.requestCount("/rates/A/EUR/2023-04-29")).isZero();
+    }
+
+    @Test
+    void returnsRateOfPreviousTable_givenPreviousResolution_andHoliday() {
+        // Given
+        LocalDate dayBeforeAllSaints = LocalDate.of(2023, 10, 31);
+
+        // When
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity(
+                "/api/v1/exchange-rates/average/CZK/2023-11-01?resolution=PREVIOUS", JsonNode.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("date").asText()).isEqualTo("2023-10-31");
+        assertThat(response.getBody().get("averageExchangeRate").decimalValue())
+                .isEqualByComparingTo(SIMULATOR.mid(Currency.CZK, dayBeforeAllSaints));
+        assertThat(SIMULATOR.requestCount("/rates/A/CZK/2023-11-01")).isZero();
+    }
+
+    @Test
+    void convertsBetweenCurrencies_fetchingWholeTableOnlyOnce() {
+        // Given
+        LocalDate date = LocalDate.of(2023, 4, 27);
+        BigDecimal rate = SIMULATOR.mid(Currency.EUR, date).divide(SIMULATOR.mid(Currency.USD, date), 10, RoundingMode.HALF_EVEN);
+
+        // When
+        ResponseEntity<JsonNode> first = restTemplate.getForEntity(
+                "/api/v1/exchange-rates/convert/EUR/USD/2023-04-27?amount=250", JsonNode.class);
+        ResponseEntity<JsonNode> second = restTemplate.getForEntity(
+                "/api/v1/exchange-rates/convert/USD/PLN/2023-04-27", JsonNode.class);
+
+        // Then
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody().get("rate").decimalValue()).isEqualByComparingTo(rate);
+        assertThat(second.getBody().get("convertedAmount").decimalValue())
+                .isEqualByComparingTo(SIMULATOR.mid(Currency.USD, date));
+        assertThat(SIMULATOR.requestCount("/tables/A/2023-04-27/2023-04-27")).isEqualTo(1);
+        assertThat(SIMULATOR.requestCount("/rates/A/EUR/2023-04-27")).isZero();
+    }
+
+    @Test
+    void returnsAverageExchangeRateFromTableB_givenCurrencyQuotedWeekly() {
+        // Given
+        LocalDate wednesday = LocalDate.of(2023, 4, 19);
+
+        // When
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/api/v1/exchange-rates/average/sar/2023-04-21?resolution=PREVIOUS", JsonNode.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("date").asText()).isEqualTo("2023-04-19");
+        assertThat(response.getBody().get("averageExchangeRate").decimalValue())
+                .isEqualByComparingTo(SIMULATOR.mid(Currency.SAR, wednesday));
+        assertThat(SIMULATOR.requestCount("/rates/B/SAR/2023-04-19")).isEqualTo(1);
+    }
+
+    @Test
+    void returnsMinMaxOfLastQuotes() {
+        // Given
+        List<BigDecimal> lastMids = lastPublishedDates(10).stream()
+                .map(date -> SIMULATOR.mid(Currency.GBP, date))
+                .toList();
+
+        // When
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/api/v1/exchange-rates/min-max/GBP/10", JsonNode.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("minAvgValue").decimalValue())
+                .isEqualByComparingTo(lastMids.stream().min(BigDecimal::compareTo).orElseThrow());
+        assertThat(response.getBody().get("maxAvgValue").decimalValue())
+                .isEqualByComparingTo(lastMids.stream().max(BigDecimal::compareTo).orElseThrow());
+    }
+
+    @Test
+    void returnsSameRateInCbor_givenCborAccepted() throws IOException {
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+
+        // When
+        ResponseEntity<byte[]> response = restTemplate.exchange("/api/v1/exchange-rates/average/HUF/2023-04-21",
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(response.getHeaders().getETag()).contains("-cbor-");
+        JsonNode body = new CBORMapper().readTree(response.getBody());
+        assertThat(body.get("date").asText()).isEqualTo("2023-04-21");
+        assertThat(body.get("averageExchangeRate").decimalValue())
+                .isEqualByComparingTo(SIMULATOR.mid(Currency.HUF, LocalDate.of(2023, 4, 21)));
+    }
+
+    @Test
+    void compressesSeries_givenGzipAccepted() throws IOException {
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        // When
+        ResponseEntity<byte[]> response = restTemplate.exchange("/api/v1/exchange-rates/series/DKK?from=2021-01-01&to=2021-06-30",
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            String lines = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(lines.lines().findFirst()).hasValueSatisfying(line -> assertThat(line).contains("2021-01-04"));
+            assertThat(response.getBody().length).isLessThan(lines.length() / 2);
+        }
+    }
+
+    @Test
+    void rejectsRequestsWithRetryAfter_givenClientExceedingRateLimit() {
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-API-Key", "greedy");
+        HttpEntity<Void> greedy = new HttpEntity<>(headers);
+
+        // When
+        List<ResponseEntity<String>> responses = Stream.generate(() -> restTemplate.exchange("/api/v1/exchange-rates/min-max/GBP/255",
+                        HttpMethod.GET, greedy, String.class))
+                .limit(8)
+                .toList();
+
+        // Then
+        assertThat(responses.subList(0, 7)).allSatisfy(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK));
+        ResponseEntity<String> rejected = responses.get(7);
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotBlank();
+        assertThat(restTemplate.getForEntity("/api/v1/exchange-rates/min-max/GBP/255", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+        assertThat(restTemplate.getForEntity("/actuator/metrics/http.server.requests.rejected?tag=reason:rate_limit", JsonNode.class)
+                .getBody().at("/measurements/0/value").asDouble()).isPositive();
+    }
+
+    @Test
+    @Timeout(10)
+    void pushesQuotesOfSubscribedCurrencies_whenTableIngested() throws Exception {
+        // Given
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/exchange-rates/subscribe?currencies=usd,CHF"))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .build();
+        ExchangeRateTableNBPResponse table = new ExchangeRateTableNBPResponse("C", "082/C/NBP/2023", LocalDate.of(2023, 4, 28), List.of(
+                new TableRateNBPResponse("euro", "EUR", null, new BigDecimal("4.5512"), new BigDecimal("4.6432")),
+                new TableRateNBPResponse("dolar amerykański", "USD", null, new BigDecimal("4.1283"), new BigDecimal("4.2117"))));
+        Iterator<String> lines = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofLines()).body().iterator();
+        assertThat(lines.next()).isEqualTo(":subscribed");
+
+        // When
+        events.publishEvent(new TableIngestedEvent(RateTable.C, table));
+
+        // Then
+        String data = Stream.generate(lines::next).filter(line -> line.startsWith("data:")).findFirst().orElseThrow();
+        JsonNode update = new ObjectMapper().readTree(data.substring("data:".length()));
+        assertThat(update.get("currencyCode").asText()).isEqualTo("USD");
+        assertThat(update.get("date").asText()).isEqualTo("2023-04-28");
+        assertThat(update.get("ask").decimalValue()).isEqualByComparingTo("4.2117");
+        assertThat(update.has("mid")).isFalse();
+    }
+
+    @Test
+    void returnsStatisticsWithoutMajorDifference_givenCurrencyMissingFromTableC() {
+        // When
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/api/v1/exchange-rates/statistics/THB/5", JsonNode.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("numOfQuotes").asInt()).isEqualTo(5);
+        assertThat(response.getBody().has("majorDifference")).isFalse();
+    }
+
+    @Test
+    void streamsOneLinePerPublishedDay_givenSeriesLongerThanNbpRangeLimit() {
+        // Given
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        LocalDate to = LocalDate.of(2022, 12, 31);
+        long publishedDays = from.datesUntil(to.plusDays(1)).filter(date -> SIMULATOR.isPublished(RateTable.A, date)).count();
+
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "/api/v1/exchange-rates/series/CHF?from=2022-01-01&to=2022-12-31", String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().lines()).hasSize((int) publishedDays);
+        assertThat(response.getBody().lines().findFirst()).hasValueSatisfying(line -> assertThat(line).contains("2022-01-03"));
+    }
+
+    @Test
+    void reportsErrorsPerQuery_givenBatchWithUnpublishedDate() {
+        // Given
+        Map<String, Object> request = Map.of("queries", List.of(
+                Map.of("currencyCode", "NOK", "date", "2023-04-24"),
+                Map.of("currencyCode", "NOK", "date", "2023-04-22")));
+
+        // When
+        ResponseEntity<JsonNode> response = restTemplate.postForEntity("/api/v1/exchange-rates/average/batch", request, JsonNode.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("results")).hasSize(1);
+        assertThat(response.getBody().get("errors").get(0).get("date").asText()).isEqualTo("2023-04-22");
+    }
+
+    @Test
+    void rejectsNextRequestWithRetryAfter_untilLargeBatchIsRefilled() {
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-API-Key", "large-batches");
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(Map.of("queries",
+                Collections.nCopies(1000, Map.of("currencyCode", "NOK", "date", "2023-04-24"))), headers);
+
+        // When
+        ResponseEntity<JsonNode> first = restTemplate.postForEntity("/api/v1/exchange-rates/average/batch", request, JsonNode.class);
+        ResponseEntity<JsonNode> second = restTemplate.postForEntity("/api/v1/exchange-rates/average/batch", request, JsonNode.class);
+
+        // Then
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(Long.parseLong(second.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))).isGreaterThan(60);
+    }
+
+    @Test
+    void exposesNbpCallAndEndpointMetrics_forPrometheus() {
+        // Given
+        restTemplate.getForEntity("/api/v1/exchange-rates/average/SEK/2023-04-25", JsonNode.class);
+
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .containsPattern("nbp_api_requests_seconds_count\\{.*currency=\"SEK\".*status=\"200\".*table=\"A\".*}")
+                .containsPattern("http_server_requests_seconds_bucket\\{.*uri=\"/api/v1/exchange-rates/average/\\{currencyCode}/\\{date}\"")
+                .contains("cache_gets_total{cache=\"nbp-responses\"")
+                .contains("exchange_rates_snapshot_lookups_total{");
+    }
+
+    private static List<LocalDate> lastPublishedDates(int count) {
+        LocalDate today = LocalDate.now(NbpSimulator.WARSAW);
+        List<LocalDate> published = today.minusDays(count * 3L).datesUntil(today.plusDays(1))
+                .filter(date -> SIMULATOR.isPublished(RateTable.A, date))
+                .toList();
+        return published.subList(published.size() - count, published.size());
+    }
+
+    private static NbpSimulator startSimulator() {
+        try {
+            return NbpSimulator.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package pl.igorbykowski.exchange_rates.load;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import pl.igorbykowski.exchange_rates.ExchangeRatesApplication;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop load driver reporting throughput and latency percentiles per endpoint.
+ * <p>
+ * Without {@code --target} it starts an {@link NbpSimulator} and the application on a random port pointed at it.
+ * Options are {@code name=value} pairs, optionally prefixed with {@code --}, all optional:
+ * {@code target=http://host:port}, {@code concurrency=50}, {@code duration=30s}, {@code warmup=10s},
+ * {@code endpoints=AVERAGE,MIN_MAX,...}, and for the simulator {@code nbp-latency=50ms}, {@code nbp-jitter=50ms},
+ * {@code nbp-error-rate=0.01}. Names containing a dot are passed to the application as properties, e.g.
+ * {@code spring.threads.virtual.enabled=true}.
+ */
+public final class LoadTest {
+
+    private static final List<Currency> CURRENCIES = List.copyOf(NbpSimulator.currenciesOf(RateTable.A));
+    private static final List<Currency> TABLE_C_CURRENCIES = List.copyOf(NbpSimulator.currenciesOf(RateTable.C));
+
+    enum Endpoint {
+        AVERAGE((random, today) -> get("/average/%s/%s".formatted(any(random, CURRENCIES), pastWeekday(random, today, 730)))),
+        MIN_MAX((random, today) -> get("/min-max/%s/%d".formatted(any(random, CURRENCIES), 1 + random.nextInt(255)))),
+        DIFFERENCE((random, today) -> get("/difference/%s/%d".formatted(any(random, TABLE_C_CURRENCIES), 1 + random.nextInt(255)))),
+        STATISTICS((random, today) -> get("/statistics/%s/%d".formatted(any(random, TABLE_C_CURRENCIES), 1 + random.nextInt(255)))),
+        SERIES((random, today) -> {
+            LocalDate from = today.minusDays(365 + random.nextInt(3 * 365));
+            return get("/series/%s?from=%s&to=%s".formatted(any(random, CURRENCIES), from, from.plusDays(364)));
+        }),
+        BATCH((random, today) -> {
+            String queries = random.ints(20, 0, CURRENCIES.size())
+                    .mapToObj(i -> "{\"currencyCode\":\"%s\",\"date\":\"%s\"}".formatted(CURRENCIES.get(i), pastWeekday(random, today, 730)))
+                    .collect(Collectors.joining(",", "{\"queries\":[", "]}"));
+            return new RequestTemplate("POST", "/average/batch", queries);
+        });
+
+        private final BiFunction<Random, LocalDate, RequestTemplate> requests;
+
+        Endpoint(BiFunction<Random, LocalDate, RequestTemplate> requests) {
+            this.requests = requests;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "50"));
+        List<Endpoint> endpoints = Arrays.stream(options.getOrDefault("endpoints", "AVERAGE,MIN_MAX,DIFFERENCE,STATISTICS,SERIES,BATCH")
+                .split(",")).map(String::trim).map(Endpoint::valueOf).toList();
+
+        if (options.containsKey("target")) {
+            run(options.get("target"), endpoints, concurrency, warmup, duration);
+            return;
+        }
+        NbpSimulatorSettings settings = NbpSimulatorSettings.DEFAULTS.toBuilder()
+                .latency(DurationStyle.detectAndParse(options.getOrDefault("nbp-latency", "50ms")))
+                .jitter(DurationStyle.detectAndParse(options.getOrDefault("nbp-jitter", "50ms")))
+                .errorRate(Double.parseDouble(options.getOrDefault("nbp-error-rate", "0")))
+                .build();
+        try (NbpSimulator simulator = NbpSimulator.start(settings);
+             ConfigurableApplicationContext application = startApplication(simulator, options)) {
+            String port = application.getEnvironment().getProperty("local.server.port");
+            run("http://localhost:" + port, endpoints, concurrency, warmup, duration);
+            System.out.printf("NBP simulator received %d requests.%n", simulator.requestCount());
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(NbpSimulator simulator, Map<String, String> options) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0", "--logging.level.root=WARN", "--nbp.api.base-url=" + simulator.baseUrl()));
+        // The load comes from a single client, which would otherwise be throttled.
+        if (!options.containsKey("nbp.rate-limit.enabled")) arguments.add("--nbp.rate-limit.enabled=false");
+        options.forEach((name, value) -> {
+            if (name.contains(".")) arguments.add("--" + name + "=" + value);
+        });
+        return new SpringApplicationBuilder(ExchangeRatesApplication.class).run(arguments.toArray(String[]::new));
+    }
+
+    private static void run(String target, List<Endpoint> endpoints, int concurrency, Duration warmup, Duration duration)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        List<Future<Recorder>> futures = new ArrayList<>();
+        for (int worker = 0; worker < concurrency; worker++) {
+            int offset = worker;
+            futures.add(workers.submit(() -> drive(client, target, endpoints, offset, measureFrom, end)));
+        }
+        Recorder total = new Recorder();
+        for (Future<Recorder> future : futures) total.addAll(future.get());
+        workers.shutdown();
+        report(total, endpoints, concurrency, duration);
+    }
+
+    private static Recorder drive(HttpClient client, String target, List<Endpoint> endpoints, int offset,
+                                  long measureFrom, long end) {
+        Recorder recorder = new Recorder();
+        Random random = ThreadLocalRandom.current();
+        LocalDate today = LocalDate.now(NbpSimulator.WARSAW);
+        for (long i = offset; System.nanoTime() < end; i++) {
+            Endpoint endpoint = endpoints.get((int) (i % endpoints.size()));
+            HttpRequest request = endpoint.requests.apply(random, today).toRequest(target);
+            long sent = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long received = System.nanoTime();
+            if (sent >= measureFrom && received <= end) recorder.record(endpoint, status, received - sent);
+        }
+        return recorder;
+    }
+
+    private static void report(Recorder recorder, List<Endpoint> endpoints, int concurrency, Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%nconcurrency=%d, measured %.0f s%n", concurrency, seconds);
+        System.out.printf("%-11s %9s %9s %6s %6s %6s %6s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "2xx", "4xx", "5xx", "io", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long allRequests = 0;
+        for (Endpoint endpoint : endpoints) {
+            long[] latencies = recorder.latencies(endpoint);
+            Arrays.sort(latencies);
+            allRequests += latencies.length;
+            Map<Integer, Long> statuses = recorder.statuses(endpoint);
+            System.out.printf("%-11s %9d %9.1f %6d %6d %6d %6d %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint, latencies.length, latencies.length / seconds,
+                    statuses.getOrDefault(2, 0L), statuses.getOrDefault(4, 0L), statuses.getOrDefault(5, 0L),
+                    statuses.getOrDefault(-1, 0L),
+                    percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                    percentile(latencies, 100));
+        }
+        System.out.printf("%-11s %9d %9.1f%n", "total", allRequests, allRequests / seconds);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            if (!option.contains("="))
+                throw new IllegalArgumentException("Expected name=value but got " + arg);
+            options.put(option.substring(0, option.indexOf('=')), option.substring(option.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static <T> T any(Random random, List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static LocalDate pastWeekday(Random random, LocalDate today, int days) {
+        LocalDate date = today.minusDays(1 + random.nextInt(days));
+        return switch (date.getDayOfWeek()) {
+            case SATURDAY -> date.minusDays(1);
+            case SUNDAY -> date.minusDays(2);
+            default -> date;
+        };
+    }
+
+    private static RequestTemplate get(String path) {
+        return new RequestTemplate("GET", path, null);
+    }
+
+    private record RequestTemplate(String method, String path, String body) {
+        private HttpRequest toRequest(String target) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target + "/api/v1/exchange-rates" + path))
+                    .timeout(Duration.ofSeconds(30));
+            return body == null
+                    ? builder.GET().build()
+                    : builder.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        }
+    }
+
+    private static final class Recorder {
+        private final Map<Endpoint, List<long[]>> samples = new EnumMap<>(Endpoint.class);
+
+        private void record(Endpoint endpoint, int status, long nanos) {
+            samples.computeIfAbsent(endpoint, e -> new ArrayList<>()).add(new long[]{status, nanos});
+        }
+
+        private void addAll(Recorder other) {
+            other.samples.forEach((endpoint, values) -> samples.computeIfAbsent(endpoint, e -> new ArrayList<>()).addAll(values));
+        }
+
+        private long[] latencies(Endpoint endpoint) {
+            return samples.getOrDefault(endpoint, List.of()).stream().mapToLong(sample -> sample[1]).toArray();
+        }
+
+        private Map<Integer, Long> statuses(Endpoint endpoint) {
+            return samples.getOrDefault(endpoint, List.of()).stream()
+                    .collect(Collectors.groupingBy(sample -> sample[0] < 0 ? -1 : (int) sample[0] / 100, Collectors.counting()));
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package pl.igorbykowski.exchange_rates.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import pl.igorbykowski.exchange_rates.currency.Currency;
+import pl.igorbykowski.exchange_rates.currency.RateTable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the NBP exchange rates API, serving deterministic tables A, B and C.
+ * <p>
+ * Tables A and C exist for every business day from 2002-01-02, table B for one business day a week, published at
+ * NBP's usual time (tables A and B 12:15, table C 08:15 Warsaw time) according to the configured clock. Weekends and
+ * Polish public holidays answer 404 like NBP does, as do currencies the table does not quote. Ranges longer than
+ * 93 days and more than 255 last quotes answer 400. Latency, jitter and a rate of 500 responses are configurable
+ * through {@link NbpSimulatorSettings}.
+ */
+public final class NbpSimulator implements AutoCloseable {
+
+    public static final String BASE_PATH = "/api/exchangerates";
+
+    static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final Map<RateTable, LocalTime> PUBLICATION_TIMES = Map.of(
+            RateTable.A, LocalTime.of(12, 15), RateTable.B, LocalTime.of(12, 15), RateTable.C, LocalTime.of(8, 15));
+    private static final LocalDate FIRST_TABLE_DATE = LocalDate.of(2002, 1, 2);
+    private static final int MAX_RANGE_DAYS = 93;
+    private static final int MAX_LAST_QUOTES = 255;
+    private static final Set<MonthDay> FIXED_HOLIDAYS = Set.of(
+            MonthDay.of(1, 1), MonthDay.of(5, 1), MonthDay.of(5, 3), MonthDay.of(8, 15),
+            MonthDay.of(11, 1), MonthDay.of(11, 11), MonthDay.of(12, 25), MonthDay.of(12, 26));
+
+    private final NbpSimulatorSettings settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random;
+    private final Map<String, LongAdder> requestsByPath = new ConcurrentHashMap<>();
+
+    private NbpSimulator(NbpSimulatorSettings settings) throws IOException {
+        this.settings = settings;
+        this.random = new Random(settings.seed());
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(BASE_PATH, this::handle);
+        server.start();
+    }
+
+    public static NbpSimulator start() throws IOException {
+        return start(NbpSimulatorSettings.DEFAULTS);
+    }
+
+    public static NbpSimulator start(NbpSimulatorSettings settings) throws IOException {
+        return new NbpSimulator(settings);
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + BASE_PATH;
+    }
+
+    public long requestCount() {
+        return requestsByPath.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Number of requests received for the path below {@link #BASE_PATH}, e.g. {@code /rates/A/USD/2023-04-26}.
+     */
+    public long requestCount(String path) {
+        LongAdder count = requestsByPath.get(path);
+        return count == null ? 0 : count.sum();
+    }
+
+    public boolean isPublished(RateTable table, LocalDate date) {
+        LocalDateTime now = LocalDateTime.now(settings.clock().withZone(WARSAW));
+        LocalDate lastPublished = now.toLocalTime().isBefore(PUBLICATION_TIMES.get(table))
+                ? now.toLocalDate().minusDays(1)
+                : now.toLocalDate();
+        return !date.isBefore(FIRST_TABLE_DATE)
+                && !date.isAfter(lastPublished)
+                && isBusinessDay(date)
+                && (table != RateTable.B || date.equals(weeklyPublicationDay(date)));
+    }
+
+    public static Set<Currency> currenciesOf(RateTable table) {
+        return EnumSet.copyOf(Arrays.stream(Currency.values()).filter(currency -> currency.isQuotedIn(table)).toList());
+    }
+
+    public BigDecimal mid(Currency currency, LocalDate date) {
+        double base = 0.5 + Math.floorMod(currency.name().hashCode(), 450) / 100.0;
+        double trend = 1 + 0.05 * Math.sin(date.toEpochDay() / 30.0);
+        double noise = 1 + (Math.floorMod((currency.name() + date).hashCode(), 200) - 100) / 10_000.0;
+        return BigDecimal.valueOf(base * trend * noise).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal bid(Currency currency, LocalDate date) {
+        return mid(currency, date).multiply(new BigDecimal("0.99")).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal ask(Currency currency, LocalDate date) {
+        return mid(currency, date).multiply(new BigDecimal("1.01")).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath().substring(BASE_PATH.length());
+            requestsByPath.computeIfAbsent(path, p -> new LongAdder()).increment();
+            delay();
+            if (settings.errorRate() > 0 && nextDouble() < settings.errorRate()) {
+                respond(exchange, 500, "500 Internal Server Error");
+                return;
+            }
+            Response response = route(path.split("/"));
+            respond(exchange, response.status(), response.body());
+        }
+    }
+
+    private Response route(String[] segments) {
+        try {
+            if (segments.length == 5 && segments[1].equals("rates"))
+                return rates(segments[2], segments[3], segments[4], segments[4]);
+            if (segments.length == 6 && segments[1].equals("rates") && segments[4].equals("last"))
+                return lastRates(segments[2], segments[3], Integer.parseInt(segments[5]));
+            if (segments.length == 6 && segments[1].equals("rates"))
+                return rates(segments[2], segments[3], segments[4], segments[5]);
+            if (segments.length == 5 && segments[1].equals("tables"))
+                return tables(segments[2], LocalDate.parse(segments[3]), LocalDate.parse(segments[4]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return Response.BAD_REQUEST;
+        }
+        return Response.BAD_REQUEST;
+    }
+
+    private Response rates(String table, String code, String from, String to) {
+        LocalDate start = LocalDate.parse(from);
+        LocalDate end = LocalDate.parse(to);
+        if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) return Response.RANGE_EXCEEDED;
+        Currency currency = Currency.valueOf(code.toUpperCase(Locale.ROOT));
+        return rateSeries(rateTable(table), currency, publishedDates(rateTable(table), start, end));
+    }
+
+    private Response lastRates(String table, String code, int count) {
+        if (count < 1 || count > MAX_LAST_QUOTES) return Response.BAD_REQUEST;
+        Currency currency = Currency.valueOf(code.toUpperCase(Locale.ROOT));
+        RateTable rateTable = rateTable(table);
+        Deque<LocalDate> dates = new ArrayDeque<>(count);
+        for (LocalDate date = LocalDate.now(settings.clock().withZone(WARSAW)); dates.size() < count && !date.isBefore(FIRST_TABLE_DATE); date = date.minusDays(1)) {
+            if (isPublished(rateTable, date)) dates.addFirst(date);
+        }
+        return rateSeries(rateTable, currency, List.copyOf(dates));
+    }
+
+    private Response rateSeries(RateTable table, Currency currency, List<LocalDate> dates) {
+        if (dates.isEmpty() || !currency.isQuotedIn(table)) return Response.NOT_FOUND;
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("table", table.name())
+                .put("currency", currency.getDescription())
+                .put("code", currency.name());
+        ArrayNode rates = body.putArray("rates");
+        for (LocalDate date : dates) {
+            ObjectNode rate = rates.addObject()
+                    .put("no", tableNumber(table, date))
+                    .put("effectiveDate", date.toString());
+            putRates(rate, table, currency, date);
+        }
+        return Response.ok(body.toString());
+    }
+
+    private Response tables(String table, LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) return Response.RANGE_EXCEEDED;
+        RateTable rateTable = rateTable(table);
+        List<LocalDate> dates = publishedDates(rateTable, from, to);
+        if (dates.isEmpty()) return Response.NOT_FOUND;
+        ArrayNode body = objectMapper.createArrayNode();
+        for (LocalDate date : dates) {
+            ObjectNode tableNode = body.addObject()
+                    .put("table", rateTable.name())
+                    .put("no", tableNumber(rateTable, date))
+                    .put("effectiveDate", date.toString());
+            ArrayNode rates = tableNode.putArray("rates");
+            for (Currency currency : currenciesOf(rateTable)) {
+                ObjectNode rate = rates.addObject()
+                        .put("currency", currency.getDescription())
+                        .put("code", currency.name());
+                putRates(rate, rateTable, currency, date);
+            }
+        }
+        return Response.ok(body.toString());
+    }
+
+    private void putRates(ObjectNode rate, RateTable table, Currency currency, LocalDate date) {
+        if (table == RateTable.C) {
+            rate.put("bid", bid(currency, date));
+            rate.put("ask", ask(currency, date));
+        } else {
+            rate.put("mid", mid(currency, date));
+        }
+    }
+
+    private List<LocalDate> publishedDates(RateTable table, LocalDate from, LocalDate to) {
+        return from.datesUntil(to.plusDays(1)).filter(date -> isPublished(table, date)).toList();
+    }
+
+    private static RateTable rateTable(String table) {
+        return RateTable.valueOf(table.toUpperCase(Locale.ROOT));
+    }
+
+    private static String tableNumber(RateTable table, LocalDate date) {
+        return "%03d/%s/NBP/%d".formatted(date.getDayOfYear(), table, date.getYear());
+    }
+
+    private static boolean isBusinessDay(LocalDate date) {
+        return date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY && !isHoliday(date);
+    }
+
+    /**
+     * Wednesday of the week, or the last business day before it if Wednesday is a holiday.
+     */
+    private static LocalDate weeklyPublicationDay(LocalDate date) {
+        LocalDate day = date.with(DayOfWeek.WEDNESDAY);
+        while (!isBusinessDay(day)) day = day.minusDays(1);
+        return day;
+    }
+
+    private static boolean isHoliday(LocalDate date) {
+        if (FIXED_HOLIDAYS.contains(MonthDay.from(date))) return true;
+        if (date.getYear() >= 2011 && MonthDay.from(date).equals(MonthDay.of(1, 6))) return true;
+        if (date.getYear() >= 2025 && MonthDay.from(date).equals(MonthDay.of(12, 24))) return true;
+        if (date.equals(LocalDate.of(2018, 11, 12))) return true;
+        LocalDate easter = easterSunday(date.getYear());
+        return date.equals(easter.plusDays(1)) || date.equals(easter.plusDays(60));
+    }
+
+    /**
+     * Anonymous Gregorian algorithm.
+     */
+    private static LocalDate easterSunday(int year) {
+        int a = year % 19, b = year / 100, c = year % 100, d = b / 4, e = b % 4;
+        int f = (b + 8) / 25, g = (b - f + 1) / 3, h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4, k = c % 4, l = (32 + 2 * e + 2 * i - h - k) % 7, m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31, day = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(year, month, day);
+    }
+
+    private void delay() {
+        long millis = settings.latency().toMillis();
+        long jitter = settings.jitter().toMillis();
+        if (jitter > 0) millis += (long) (nextDouble() * jitter);
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                status == 200 ? "application/json; charset=utf-8" : "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private record Response(int status, String body) {
+        private static final Response NOT_FOUND = new Response(404, "404 NotFound - Not Found - Brak danych");
+        private static final Response BAD_REQUEST = new Response(400, "400 BadRequest - Błędne zapytanie");
+        private static final Response RANGE_EXCEEDED = new Response(400,
+                "400 BadRequest - Przekroczony limit 93 dni / Limit of 93 days has been exceeded");
+
+        private static Response ok(String body) {
+            return new Response(200, body);
+        }
+    }
+}
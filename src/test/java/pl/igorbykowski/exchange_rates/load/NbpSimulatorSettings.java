@@ -0,0 +1,30 @@
+package pl.igorbykowski.exchange_rates.load;
+
+import lombok.Builder;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * @param clock     decides which tables are already published
+ * @param latency   delay added to every response
+ * @param jitter    maximum random delay added on top of {@code latency}
+ * @param errorRate fraction of requests answered with 500 Internal Server Error
+ * @param seed      seed of the jitter and error randomness
+ */
+@Builder(toBuilder = true)
+public record NbpSimulatorSettings(
+        Clock clock,
+        Duration latency,
+        Duration jitter,
+        double errorRate,
+        long seed
+) {
+    public static final NbpSimulatorSettings DEFAULTS = NbpSimulatorSettings.builder()
+            .clock(Clock.systemDefaultZone())
+            .latency(Duration.ZERO)
+            .jitter(Duration.ZERO)
+            .errorRate(0)
+            .seed(42)
+            .build();
+}